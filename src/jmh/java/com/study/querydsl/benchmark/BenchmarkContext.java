@@ -0,0 +1,72 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 (내장 H2, SQL 로그 off)
+ */
+final class BenchmarkContext {
+
+    static final int TEAM_COUNT = 10;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param properties 벤치마크별로 추가할 설정 (--key=value)
+     */
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        // properties() 는 기본값(가장 낮은 우선순위)이라 application.yml, test 리소스에 덮이므로 커맨드라인 인자로 넘긴다.
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--decorator.datasource.enabled=false",
+                // jmh 클래스패스에 test 리소스(mode=fail)가 포함되므로 시드 중 지연 로딩이 실패하지 않게 끈다.
+                "--querydsl.n-plus-one.mode=off",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=off",
+                "--logging.level.org.hibernate.type=off"
+        };
+        String[] all = Arrays.copyOf(args, args.length + properties.length);
+        System.arraycopy(properties, 0, all, args.length, properties.length);
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all);
+    }
+
+    // teamName = team0 ~ team9, age = 0 ~ 99 로 고르게 분포
+    static void seed(ConfigurableApplicationContext context, int memberCount) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.executeWithoutResult(status -> {
+            Team[] teams = new Team[TEAM_COUNT];
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                teams[i] = new Team("team" + i);
+                em.persist(teams[i]);
+            }
+            for (int i = 0; i < memberCount; i++) {
+                Team team = em.getReference(Team.class, teams[i % TEAM_COUNT].getId());
+                em.persist(new Member("member" + i, i % 100, team));
+                if (i % 1000 == 999) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,156 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 3단계 : 내장 H2 에 dataSize 만큼 회원을 넣고 실제 실행 비용을 측정
+ * 프로젝션은 team1 (전체의 1/10) 회원만 조회한다.
+ */
+@State(Scope.Benchmark)
+public class ExecutionBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int dataSize;
+
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("execution" + dataSize);
+        BenchmarkContext.seed(context, dataSize);
+        emf = context.getBean(EntityManagerFactory.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        condition = ExpressionBuildBenchmark.Conditions.typical();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 엔티티 조회 벤치마크가 1차 캐시를 재사용하지 않도록 반복마다 새 EntityManager 를 사용한다.
+    @Setup(Level.Iteration)
+    public void openEntityManager() {
+        em = emf.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeEntityManager() {
+        em.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByWhereParam() {
+        return memberJpaRepository.searchByWhereParam(condition);
+    }
+
+    // 조건 모양별 JPQL 템플릿 캐시 사용 (MemberSearchTemplates)
+    @Benchmark
+    public List<MemberTeamDto> searchByTemplate() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionBean() {
+        return queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionFields() {
+        return queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionConstructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> projectionQueryProjection() {
+        return queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team1"))
+                .fetch();
+    }
+
+    @Benchmark
+    public void entityFetchJoin(Blackhole blackhole) {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.eq("team1"))
+                .fetch();
+        for (Member m : members) {
+            blackhole.consume(m.getTeam().getName());
+        }
+        em.clear();
+    }
+
+    // 지연 로딩 : 회원 조회 후 team 에 접근할 때마다 (1차 캐시에 없으면) 추가 select
+    @Benchmark
+    public void entityLazy(Blackhole blackhole) {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .where(member.team.name.eq("team1"))
+                .fetch();
+        for (Member m : members) {
+            blackhole.consume(m.getTeam().getName());
+        }
+        em.clear();
+    }
+}
@@ -0,0 +1,137 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 1단계 : 표현식(쿼리 메타데이터) 생성 비용 - DB, EntityManager 없이 측정
+ */
+@State(Scope.Benchmark)
+public class ExpressionBuildBenchmark {
+
+    MemberSearchCondition condition;
+
+    @Setup
+    public void setup() {
+        condition = Conditions.typical();
+    }
+
+    @Benchmark
+    public Predicate booleanBuilder() {
+        return Conditions.booleanBuilder(condition);
+    }
+
+    @Benchmark
+    public Predicate[] whereParam() {
+        return Conditions.whereParams(condition);
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> queryWithQueryProjection() {
+        return new JPAQuery<Void>()
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(Conditions.whereParams(condition));
+    }
+
+    @Benchmark
+    public JPAQuery<MemberDto> projectionBean() {
+        return new JPAQuery<Void>()
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member);
+    }
+
+    @Benchmark
+    public JPAQuery<MemberDto> projectionFields() {
+        return new JPAQuery<Void>()
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member);
+    }
+
+    @Benchmark
+    public JPAQuery<MemberDto> projectionConstructor() {
+        return new JPAQuery<Void>()
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member);
+    }
+
+    @Benchmark
+    public JPAQuery<MemberDto> projectionQueryProjection() {
+        return new JPAQuery<Void>()
+                .select(new QMemberDto(member.username, member.age))
+                .from(member);
+    }
+
+    /**
+     * 검색 조건 생성 방식 (MemberJpaRepository.searchByBuilder / searchByWhereParam 과 동일)
+     */
+    static final class Conditions {
+
+        private Conditions() {
+        }
+
+        static MemberSearchCondition typical() {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("team1");
+            condition.setAgeGoe(20);
+            condition.setAgeLoe(40);
+            return condition;
+        }
+
+        static BooleanBuilder booleanBuilder(MemberSearchCondition condition) {
+            BooleanBuilder builder = new BooleanBuilder();
+            if (hasText(condition.getUsername())) {
+                builder.and(member.username.eq(condition.getUsername()));
+            }
+            if (hasText(condition.getTeamName())) {
+                builder.and(team.name.eq(condition.getTeamName()));
+            }
+            if (condition.getAgeGoe() != null) {
+                builder.and(member.age.goe(condition.getAgeGoe()));
+            }
+            if (condition.getAgeLoe() != null) {
+                builder.and(member.age.loe(condition.getAgeLoe()));
+            }
+            return builder;
+        }
+
+        static Predicate[] whereParams(MemberSearchCondition condition) {
+            return new Predicate[]{
+                    hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+                    hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                    ageGoe(condition.getAgeGoe()),
+                    ageLoe(condition.getAgeLoe())
+            };
+        }
+
+        private static BooleanExpression ageGoe(Integer ageGoe) {
+            return ageGoe != null ? member.age.goe(ageGoe) : null;
+        }
+
+        private static BooleanExpression ageLoe(Integer ageLoe) {
+            return ageLoe != null ? member.age.loe(ageLoe) : null;
+        }
+    }
+}
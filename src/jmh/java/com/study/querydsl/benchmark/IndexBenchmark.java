@@ -0,0 +1,78 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.monitoring.IndexAdvisor;
+import com.study.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+/**
+ * IndexAdvisor 가 추천한 인덱스를 만들기 전(indexed=false)과 후(indexed=true)의 검색 지연 비교
+ * 실행된 조건 모양이 repository.query 메트릭에 쌓여야 추천되므로 먼저 각 모양을 minExecutions 이상 실행한다.
+ * H2 는 같은 파라미터의 결과를 재사용하므로 호출마다 조건 값을 바꾼다.
+ */
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+
+    private static final int WARM_UP_EXECUTIONS = 100;
+
+    @Param({"10000", "100000"})
+    int dataSize;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition byUsername;
+    MemberSearchCondition byTeamNameAndAge;
+    int sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("index" + dataSize + indexed);
+        BenchmarkContext.seed(context, dataSize);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member0");
+        byTeamNameAndAge = new MemberSearchCondition();
+        byTeamNameAndAge.setTeamName("team0");
+        byTeamNameAndAge.setAgeGoe(99);
+
+        if (indexed) {
+            for (int i = 0; i < WARM_UP_EXECUTIONS; i++) {
+                memberRepository.search(byUsername);
+                memberRepository.search(byTeamNameAndAge);
+            }
+            IndexAdvisor.Report report = context.getBean(IndexAdvisor.class).analyze(true);
+            report.getRecommendations().forEach(r -> System.out.println("created: " + r.getDdl()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByUsername() {
+        byUsername.setUsername("member" + (sequence++ % dataSize));
+        return memberRepository.search(byUsername);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByTeamNameAndAge() {
+        byTeamNameAndAge.setTeamName("team" + (sequence++ % BenchmarkContext.TEAM_COUNT));
+        return memberRepository.search(byTeamNameAndAge);
+    }
+}
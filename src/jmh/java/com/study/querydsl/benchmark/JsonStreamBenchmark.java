@@ -0,0 +1,68 @@
+package com.study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.service.MemberExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 같은 검색 결과를 JSON 으로 쓰는 두 방식 비교
+ * dtoList : List<MemberTeamDto> 를 만든 뒤 ObjectMapper 로 직렬화 (/v1/members)
+ * streamRows : Object[] row 를 JsonGenerator 로 바로 쓰기 (/v1/members/stream)
+ * 할당량은 -prof gc 의 gc.alloc.rate.norm (bytes/op) 로 비교한다.
+ */
+@State(Scope.Benchmark)
+public class JsonStreamBenchmark {
+
+    @Param({"1000", "10000"})
+    int dataSize;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberExportService memberExportService;
+    ObjectMapper objectMapper;
+    MemberSearchCondition condition;
+    int sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = BenchmarkContext.start("jsonStream" + dataSize);
+        BenchmarkContext.seed(context, dataSize);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberExportService = context.getBean(MemberExportService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        condition = new MemberSearchCondition();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void dtoList() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), memberRepository.search(nextCondition()));
+    }
+
+    @Benchmark
+    public long streamRows() throws IOException {
+        return memberExportService.writeJson(nextCondition(), OutputStream.nullOutputStream());
+    }
+
+    // H2 는 같은 파라미터의 결과를 재사용하므로 항상 참인 조건의 값을 바꾼다.
+    private MemberSearchCondition nextCondition() {
+        condition.setAgeGoe(-1 - (sequence++ % 100));
+        return condition;
+    }
+}
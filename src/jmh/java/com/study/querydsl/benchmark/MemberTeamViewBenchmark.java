@@ -0,0 +1,69 @@
+package com.study.querydsl.benchmark;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.MemberTeamView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+/**
+ * MemberRepository.search 를 DB(view=false)와 메모리 뷰(view=true)에서 처리할 때의 지연 비교
+ * H2 는 같은 파라미터의 결과를 재사용하므로 호출마다 조건 값을 바꾼다.
+ */
+@State(Scope.Benchmark)
+public class MemberTeamViewBenchmark {
+
+    @Param({"10000", "100000"})
+    int dataSize;
+
+    @Param({"false", "true"})
+    boolean view;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition byUsername;
+    MemberSearchCondition byTeamNameAndAge;
+    int sequence;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("memberView" + dataSize + view,
+                "--querydsl.member-view.enabled=" + view,
+                "--querydsl.member-view.refresh-interval=PT1H");
+        BenchmarkContext.seed(context, dataSize);
+        memberRepository = context.getBean(MemberRepository.class);
+        if (view) {
+            context.getBean(MemberTeamView.class).refresh();
+        }
+
+        byUsername = new MemberSearchCondition();
+        byTeamNameAndAge = new MemberSearchCondition();
+        byTeamNameAndAge.setAgeGoe(99);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByUsername() {
+        byUsername.setUsername("member" + (sequence++ % dataSize));
+        return memberRepository.search(byUsername);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByTeamNameAndAge() {
+        byTeamNameAndAge.setTeamName("team" + (sequence++ % BenchmarkContext.TEAM_COUNT));
+        return memberRepository.search(byTeamNameAndAge);
+    }
+}
@@ -0,0 +1,98 @@
+package com.study.querydsl.benchmark;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.dto.MemberDto;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.QMemberDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 2단계 : 미리 만든 쿼리 메타데이터를 JPQL 문자열로 직렬화하는 비용
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    QueryMetadata booleanBuilderQuery;
+    QueryMetadata whereParamQuery;
+    QueryMetadata beanProjectionQuery;
+    QueryMetadata constructorProjectionQuery;
+    QueryMetadata queryProjectionQuery;
+
+    @Setup
+    public void setup() {
+        MemberSearchCondition condition = ExpressionBuildBenchmark.Conditions.typical();
+        QMemberTeamDto memberTeamDto = new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+
+        booleanBuilderQuery = new JPAQuery<Void>()
+                .select(memberTeamDto)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(ExpressionBuildBenchmark.Conditions.booleanBuilder(condition))
+                .getMetadata();
+        whereParamQuery = new JPAQuery<Void>()
+                .select(memberTeamDto)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(ExpressionBuildBenchmark.Conditions.whereParams(condition))
+                .getMetadata();
+        beanProjectionQuery = new JPAQuery<Void>()
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .getMetadata();
+        constructorProjectionQuery = new JPAQuery<Void>()
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .getMetadata();
+        queryProjectionQuery = new JPAQuery<Void>()
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .getMetadata();
+    }
+
+    @Benchmark
+    public String booleanBuilder() {
+        return serialize(booleanBuilderQuery);
+    }
+
+    @Benchmark
+    public String whereParam() {
+        return serialize(whereParamQuery);
+    }
+
+    @Benchmark
+    public String projectionBean() {
+        return serialize(beanProjectionQuery);
+    }
+
+    @Benchmark
+    public String projectionConstructor() {
+        return serialize(constructorProjectionQuery);
+    }
+
+    @Benchmark
+    public String projectionQueryProjection() {
+        return serialize(queryProjectionQuery);
+    }
+
+    private String serialize(QueryMetadata metadata) {
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(metadata, false, null);
+        return serializer.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.monitoring.StatementCounter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class QueryExecutionConfig {
+
+    /**
+     * 조회 쿼리를 별도 스레드에서 실행할 때 사용하는 풀
+     * 스레드마다 커넥션을 하나씩 사용하므로 커넥션 풀 크기보다 작게 잡는다.
+     * (Java 17 기준이라 가상 스레드 대신 크기가 고정된 풀을 사용)
+     */
+    @Bean
+    public ThreadPoolTaskExecutor queryTaskExecutor(@Value("${querydsl.query-executor.pool-size:4}") int poolSize,
+                                                    @Value("${querydsl.query-executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("query-");
+        // 병렬 count 의 SQL 수를 호출한 리포지토리 메서드에 포함한다.
+        executor.setTaskDecorator(StatementCounter::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * 비동기 검색(MemberRepositoryCustom.*Async) 전용 풀
+     * 동시 실행 수는 AsyncQueryExecutor 의 bulkhead 가 제한하므로 스레드 수를 bulkhead 크기와 맞춘다.
+     * (Java 21 이상이면 가상 스레드 실행기로 바꾸고 bulkhead 만으로 제한할 수 있다.)
+     */
+    @Bean
+    public ThreadPoolTaskExecutor asyncQueryTaskExecutor(@Value("${querydsl.async-query.max-concurrent:4}") int maxConcurrent) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setThreadNamePrefix("async-query-");
+        executor.setTaskDecorator(StatementCounter::propagate);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
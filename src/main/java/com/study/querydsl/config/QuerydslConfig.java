@@ -0,0 +1,19 @@
+package com.study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.monitoring.QueryGuard;
+import com.study.querydsl.repository.support.ExtendedJPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QuerydslConfig {
+
+    // 스프링이 주입하는 EntityManager 는 트랜잭션 단위로 위임하는 프록시라서 싱글톤으로 사용해도 된다.
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, ApplicationEventPublisher publisher, QueryGuard queryGuard) {
+        return new ExtendedJPAQueryFactory(em, publisher, queryGuard);
+    }
+}
@@ -0,0 +1,79 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.datasource.ReplicaPool;
+import com.study.querydsl.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.routing.enabled=true 이면 spring.datasource 를 primary 로,
+ * querydsl.routing.replica-urls 를 읽기 전용 복제본으로 사용한다. (계정, 드라이버, spring.datasource.hikari 설정은 primary 와 같음)
+ * p6spy 는 라우팅 데이터소스만 감싸므로(decorator.datasource.exclude-beans=lazyConnectionDataSource) 라우팅 데이터소스는 DataSource 타입으로 주입받는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "querydsl.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    private final DataSourceProperties properties;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public RoutingDataSourceConfig(DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(@Value("${querydsl.routing.replica-urls}") List<String> replicaUrls,
+                                   @Value("${querydsl.routing.balance:round-robin}") String balance,
+                                   @Value("${querydsl.routing.max-lag:5s}") Duration maxLag,
+                                   @Value("${querydsl.routing.lag-query:}") String lagQuery) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = hikari(replicaUrls.get(i).trim(), "replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaPool(replicas, ReplicaPool.Balance.of(balance), maxLag, lagQuery, meterRegistry);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(ReplicaPool replicaPool) {
+        return new ReplicaRoutingDataSource(hikari(properties.determineUrl(), "primary"), replicaPool, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource lazyConnectionDataSource(@Qualifier("routingDataSource") DataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private HikariDataSource hikari(String url, String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
@@ -1,14 +1,13 @@
 package com.study.querydsl.controller;
 
-import com.study.querydsl.entity.Member;
-import com.study.querydsl.entity.Team;
+import com.study.querydsl.service.MemberBulkLoader;
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Profile("local")
 @Component
@@ -23,21 +22,16 @@ public class InitMember {
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
+        private final MemberBulkLoader memberBulkLoader;
+
+        // ex) --querydsl.init.member-count=1000000
+        @Value("${querydsl.init.member-count:100}")
+        private int memberCount;
 
-        @Transactional
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
+            memberBulkLoader.load(List.of("teamA", "teamB"), memberCount);
         }
     }
 
@@ -1,16 +1,40 @@
 package com.study.querydsl.controller;
 
+import com.querydsl.core.types.Predicate;
+import com.study.querydsl.dto.CursorSlice;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.InvalidSliceSizeException;
+import com.study.querydsl.repository.InvalidSortException;
+import com.study.querydsl.repository.MemberDataVersion;
 import com.study.querydsl.repository.MemberJpaRepository;
 import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.MemberSearchShape;
+import com.study.querydsl.repository.support.SingleFlight;
+import com.study.querydsl.service.MemberExportService;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.querydsl.binding.QuerydslPredicate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,19 +42,90 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final SingleFlight singleFlight;
+    private final MemberDataVersion memberDataVersion;
 
+    // v1 ~ v3 : 같은 조건(+ 페이지)의 동시 요청은 DB 조회 한 번의 결과를 같이 사용한다.
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.searchByBuilder(condition);
+        return coalesce("v1", condition, null, () -> memberJpaRepository.searchByBuilder(condition));
     }
 
+    // v2, v3 : 데이터 버전이 그대로면 304 Not Modified 로 응답하고 DB 를 조회하지 않는다.
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(request, "v2", condition, pageable)) {
+            return null;
+        }
+        return coalesce("v2", condition, pageable, () -> memberRepository.searchPageSimple(condition, pageable));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean parallel,
+                                              WebRequest request) {
+        if (notModified(request, "v3", condition, pageable)) {
+            return null;
+        }
+        if (parallel) {
+            return coalesce("v3", condition, pageable, () -> memberRepository.searchPageParallel(condition, pageable));
+        }
+        return coalesce("v3", condition, pageable, () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    // sort 는 id, age 만 지원한다. 잘못된 size, sort 는 조회 없이 400 으로 응답한다.
+    @GetMapping("/v4/members")
+    public CursorSlice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @RequestParam(defaultValue = "id") String sort) {
+        if (size < 1) {
+            throw new InvalidSliceSizeException(size);
+        }
+        return switch (sort) {
+            case "id" -> memberRepository.searchSlice(condition, cursor, size);
+            case "age" -> memberRepository.searchSliceByAge(condition, cursor, size);
+            default -> throw new InvalidSortException("지원하지 않는 정렬입니다. sort=" + sort + ", 허용=[id, age]");
+        };
+    }
+
+    // ex) /v5/members?username=member1&team.name=teamA&page=0&size=10&sort=age,desc
+    // Predicate 바인딩은 같은 값 비교(eq)만 지원한다. DTO 로 바로 조회하므로 지연 로딩이 발생하지 않는다.
+    @GetMapping("/v5/members")
+    public Page<MemberTeamDto> searchMemberV5(@QuerydslPredicate(root = Member.class) Predicate predicate,
+                                              Pageable pageable) {
+        return memberRepository.findAllAs(predicate, new QMemberTeamDto(
+                member.id, member.username, member.age, team.id, team.name), pageable);
+    }
+
+    // /v1 과 같은 검색 결과를 DTO, List 없이 JSON 배열로 바로 쓴다.
+    @GetMapping("/v1/members/stream")
+    public void streamMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        memberExportService.writeJson(condition, response.getOutputStream());
+    }
+
+    // 대용량 내보내기, 결과를 메모리에 모으지 않고 응답으로 바로 쓴다.
+    @GetMapping("/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+                              @RequestParam(defaultValue = "ndjson") String format,
+                              HttpServletResponse response) throws IOException {
+        MemberExportService.Format exportFormat = MemberExportService.Format.from(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"members." + exportFormat.name().toLowerCase() + "\"");
+        memberExportService.export(condition, exportFormat, response.getWriter());
+    }
+
+    private boolean notModified(WebRequest request, String name, MemberSearchCondition condition, Pageable pageable) {
+        return request.checkNotModified(memberDataVersion.etag(name, condition, pageable));
+    }
+
+    private <T> T coalesce(String name, MemberSearchCondition condition, Pageable pageable, Supplier<T> search) {
+        MemberSearchCondition normalized = condition.normalize();
+        return singleFlight.execute(name, Arrays.asList(normalized, pageable),
+                Tags.of("shape", MemberSearchShape.of(normalized).getName()), search);
     }
 }
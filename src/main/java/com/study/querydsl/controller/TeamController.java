@@ -0,0 +1,22 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.service.TeamStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatisticsService teamStatisticsService;
+
+    // 회원 테이블을 집계하지 않고 미리 계산해 둔 팀별 통계를 반환한다.
+    @GetMapping("/teams/stats")
+    public List<TeamStatisticsDto> teamStats() {
+        return teamStatisticsService.getStatistics();
+    }
+}
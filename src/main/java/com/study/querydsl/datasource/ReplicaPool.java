@@ -0,0 +1,134 @@
+package com.study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 복제본 목록, 복제 지연(lag)이 maxLag 이하인 복제본 중에서 balance 방식으로 하나를 고른다.
+ * lagQuery 는 복제본에서 실행해서 지연 시간(초)을 한 건 반환하는 SQL
+ * ex) MySQL : select timestampdiff(second, max(ts), now()) from heartbeat, PostgreSQL : select extract(epoch from now() - pg_last_xact_replay_timestamp())
+ * lagQuery 가 없으면 지연을 확인하지 않고, 결과가 null 이거나 실패하면 사용할 수 없는 복제본으로 본다.
+ */
+@Slf4j
+public class ReplicaPool implements Closeable {
+
+    public enum Balance {
+        ROUND_ROBIN, LEAST_CONNECTIONS;
+
+        public static Balance of(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final Balance balance;
+    private final Duration maxLag;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPool(List<HikariDataSource> dataSources, Balance balance, Duration maxLag, String lagQuery,
+                       MeterRegistry meterRegistry) {
+        this.replicas = dataSources.stream().map(Replica::new).toList();
+        this.balance = balance;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+        for (Replica replica : replicas) {
+            replica.available = !StringUtils.hasText(lagQuery);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * 사용할 복제본, 지연 기준을 만족하는 복제본이 없으면 null (primary 사용)
+     */
+    public Replica select() {
+        List<Replica> available = replicas.stream().filter(r -> r.available).toList();
+        if (available.isEmpty()) {
+            return null;
+        }
+        if (balance == Balance.LEAST_CONNECTIONS) {
+            return available.stream().min(Comparator.comparingInt(Replica::activeConnections)).orElseThrow();
+        }
+        return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.routing.lag-check-interval:PT5S}")
+    public void checkLag() {
+        if (!StringUtils.hasText(lagQuery)) {
+            return;
+        }
+        for (Replica replica : replicas) {
+            Double lag = queryLag(replica);
+            replica.lagSeconds = lag != null ? lag : Double.NaN;
+            boolean available = lag != null && lag <= maxLag.toMillis() / 1000.0;
+            if (replica.available != available) {
+                log.warn("replica {} {} (lag={}s, maxLag={})", replica.name,
+                        available ? "restored" : "excluded", lag, maxLag);
+            }
+            replica.available = available;
+        }
+    }
+
+    private Double queryLag(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            double lag = resultSet.getDouble(1);
+            return resultSet.wasNull() ? null : lag;
+        } catch (SQLException e) {
+            log.warn("replica {} lag check failed: {}", replica.name, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    @Getter
+    public static class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean available;
+        private volatile double lagSeconds;
+
+        private Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+
+        // 풀은 첫 커넥션 요청 때 시작되므로 그 전에는 MXBean 이 없다.
+        private int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool != null ? pool.getActiveConnections() : 0;
+        }
+    }
+}
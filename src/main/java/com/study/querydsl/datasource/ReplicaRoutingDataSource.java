@@ -0,0 +1,69 @@
+package com.study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 복제본으로, 나머지는 primary 로 보낸다.
+ * 방금 커밋한 데이터를 읽어야 하는 곳(ChunkedBulkExecutor 의 id 범위, MemberTeamView 적재, TeamStatisticsService 계산)은
+ * 읽기 전용 트랜잭션을 사용하지 않아서 primary 에서 읽는다.
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 동기화되지 않으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 때 커넥션을 얻게 해야 한다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final ReplicaPool replicaPool;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> routed = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, ReplicaPool replicaPool, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+        this.meterRegistry = meterRegistry;
+        setTargetDataSources(Map.of(PRIMARY, primary));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return PRIMARY;
+    }
+
+    // 복제본이 모두 지연 기준을 넘으면 primary 에서 읽는다.
+    @Override
+    protected DataSource determineTargetDataSource() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReplicaPool.Replica replica = replicaPool.select();
+            if (replica != null) {
+                count(replica.getName());
+                return replica.getDataSource();
+            }
+        }
+        count(PRIMARY);
+        return primary;
+    }
+
+    private void count(String target) {
+        routed.computeIfAbsent(target, t -> Counter.builder("datasource.routing")
+                        .tag("target", t)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    // 복제본은 ReplicaPool 빈이 닫는다.
+    @Override
+    public void close() {
+        primary.close();
+    }
+}
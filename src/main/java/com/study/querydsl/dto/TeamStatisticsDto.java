@@ -0,0 +1,21 @@
+package com.study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 팀별 회원 나이 통계 (회원이 없는 팀은 count = 0, 나머지는 null)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamStatisticsDto {
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private Long sum;
+    private Integer min;
+    private Integer max;
+    private Double avg;
+}
@@ -1,17 +1,24 @@
 package com.study.querydsl.entity;
 
 
+import com.study.querydsl.entity.event.EntityChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@EntityListeners(EntityChangeListener.class)
+@NamedEntityGraph(name = Member.WITH_TEAM, attributeNodes = @NamedAttributeNode("team"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
+    public static final String WITH_TEAM = "Member.withTeam";
+
+    // 시퀀스를 100 단위로 미리 할당(pooled)해서 insert 마다 시퀀스를 조회하지 않고 JDBC 배치로 묶을 수 있게 한다.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100)
     @Column(name = "member_id")
     private long id;
     private String username;
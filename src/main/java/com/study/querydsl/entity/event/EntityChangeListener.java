@@ -0,0 +1,48 @@
+package com.study.querydsl.entity.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * JPA 엔티티 리스너
+ * 하이버네이트가 스프링 빈 컨테이너(SpringBeanContainer)를 통해 생성하므로 빈 주입을 받을 수 있다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private static final ThreadLocal<Boolean> SUSPENDED = ThreadLocal.withInitial(() -> false);
+
+    private final ApplicationEventPublisher publisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (SUSPENDED.get()) {
+            return;
+        }
+        publisher.publishEvent(new EntityChangedEvent(entity.getClass(), false));
+    }
+
+    /**
+     * 대량 적재처럼 엔티티마다 이벤트를 발행할 필요가 없는 작업은 이벤트 발행을 멈추고 실행한다.
+     * (트랜잭션 이벤트 리스너가 이벤트마다 동기화 객체를 등록하므로 건수만큼 메모리를 사용함)
+     * 호출한 쪽에서 작업 후 벌크 이벤트를 한 번 발행해야 한다.
+     */
+    public static <T> T suspend(Supplier<T> action) {
+        boolean previous = SUSPENDED.get();
+        SUSPENDED.set(true);
+        try {
+            return action.get();
+        } finally {
+            SUSPENDED.set(previous);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.study.querydsl.entity.event;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 엔티티 변경 이벤트
+ * - 엔티티 리스너 : 엔티티 단건 insert/update/delete (flush 시점)
+ * - 벌크 연산 : Querydsl update/delete 실행 시점 (bulk = true)
+ */
+@Getter
+@ToString
+public class EntityChangedEvent {
+    private final Class<?> entityType;
+    private final boolean bulk;
+
+    public EntityChangedEvent(Class<?> entityType, boolean bulk) {
+        this.entityType = entityType;
+        this.bulk = bulk;
+    }
+
+    public boolean isAbout(Class<?>... types) {
+        for (Class<?> type : types) {
+            if (type.isAssignableFrom(entityType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 하이버네이트 Statistics 를 Micrometer 카운터, 게이지(hibernate.*)로 노출한다. (2차 캐시는 영역별 적중률 포함)
+ * (hibernate-micrometer 모듈은 사용 중인 하이버네이트 6.2 버전으로 배포되지 않아 필요한 값만 직접 등록)
+ */
+@Component
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "hibernate.statements", null, Statistics::getPrepareStatementCount);
+        counter(registry, "hibernate.query.executions", null, Statistics::getQueryExecutionCount);
+        counter(registry, "hibernate.entities.loads", null, Statistics::getEntityLoadCount);
+        counter(registry, "hibernate.entities.fetches", null, Statistics::getEntityFetchCount);
+        counter(registry, "hibernate.collections.loads", null, Statistics::getCollectionLoadCount);
+        counter(registry, "hibernate.collections.fetches", null, Statistics::getCollectionFetchCount);
+        counter(registry, "hibernate.query.cache.requests", "hit", Statistics::getQueryCacheHitCount);
+        counter(registry, "hibernate.query.cache.requests", "miss", Statistics::getQueryCacheMissCount);
+        counter(registry, "hibernate.second.level.cache.requests", "hit", Statistics::getSecondLevelCacheHitCount);
+        counter(registry, "hibernate.second.level.cache.requests", "miss", Statistics::getSecondLevelCacheMissCount);
+        counter(registry, "hibernate.flushes", null, Statistics::getFlushCount);
+
+        // 2차 캐시, 쿼리 캐시 적중률
+        Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics,
+                        s -> ratio(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()))
+                .register(registry);
+        Gauge.builder("hibernate.query.cache.hit.ratio", statistics,
+                        s -> ratio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()))
+                .register(registry);
+        // 캐시 영역별 (ex. region=team, default-query-results-region)
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            FunctionCounter.builder("hibernate.cache.region.requests", regionStatistics, CacheRegionStatistics::getHitCount)
+                    .tags("region", region, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.cache.region.requests", regionStatistics, CacheRegionStatistics::getMissCount)
+                    .tags("region", region, "result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("hibernate.cache.region.puts", regionStatistics, CacheRegionStatistics::getPutCount)
+                    .tag("region", region)
+                    .register(registry);
+            Gauge.builder("hibernate.cache.region.hit.ratio", regionStatistics,
+                            r -> ratio(r.getHitCount(), r.getMissCount()))
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void counter(MeterRegistry registry, String name, String result, ToDoubleFunction<Statistics> value) {
+        FunctionCounter.Builder<Statistics> builder = FunctionCounter.builder(name, statistics, value);
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        builder.register(registry);
+    }
+}
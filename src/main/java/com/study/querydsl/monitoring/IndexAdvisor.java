@@ -0,0 +1,432 @@
+package com.study.querydsl.monitoring;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberSearchShape;
+import com.study.querydsl.repository.support.CountQueries;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 인덱스 추천
+ * 리포지토리 메트릭(repository.query 의 shape 태그)에서 실제로 많이 실행된 검색 조건 모양을 골라
+ * 하이버네이트가 만드는 SQL 로 EXPLAIN 을 실행하고, 기존 인덱스로 처리되지 않는 조건에 대해 인덱스를 추천한다.
+ * - EXPLAIN 대상은 페이징 검색(searchPageSimple, searchPageComplex)과 같은 content(order by + offset/limit) 쿼리와 count 쿼리
+ * - SQL 은 리포지토리를 거치지 않고 쿼리를 직접 만들어 SqlCapture 로 얻으므로(실행하지 않음) 분석이 메트릭에 집계되지 않는다.
+ * - 같음(eq) 조건 컬럼을 앞에, 범위(goe, loe) 조건 컬럼을 뒤에 둔 복합 인덱스
+ * - 기존 인덱스의 앞쪽 컬럼이 추천 컬럼과 같으면 추천하지 않음
+ * - auto-create=true 이면 추천 인덱스를 생성하고 EXPLAIN 을 다시 실행해서 변경된 실행 계획을 보여준다.
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    // EXPLAIN 할 페이지, offset 과 limit 이 같아서 하이버네이트가 두 파라미터를 어떤 순서로 바인딩해도 된다.
+    private static final PageRequest SAMPLE_PAGE = PageRequest.of(1, 20);
+
+    private final MeterRegistry meterRegistry;
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int topShapes;
+    private final long minExecutions;
+    private final boolean autoCreate;
+
+    private final String memberTable;
+    private final String usernameColumn;
+    private final String ageColumn;
+    private final String teamIdColumn;
+    private final String teamTable;
+    private final String teamNameColumn;
+
+    private volatile Report lastReport;
+
+    public IndexAdvisor(MeterRegistry meterRegistry,
+                        EntityManager em,
+                        JPAQueryFactory queryFactory,
+                        JdbcTemplate jdbcTemplate,
+                        EntityManagerFactory entityManagerFactory,
+                        @Value("${querydsl.index-advisor.enabled:true}") boolean enabled,
+                        @Value("${querydsl.index-advisor.top-shapes:5}") int topShapes,
+                        @Value("${querydsl.index-advisor.min-executions:100}") long minExecutions,
+                        @Value("${querydsl.index-advisor.auto-create:false}") boolean autoCreate) {
+        this.meterRegistry = meterRegistry;
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.topShapes = topShapes;
+        this.minExecutions = minExecutions;
+        this.autoCreate = autoCreate;
+
+        // 테이블, 컬럼 이름은 매핑 정보에서 가져온다.
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister memberPersister = (AbstractEntityPersister) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Member.class);
+        AbstractEntityPersister teamPersister = (AbstractEntityPersister) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Team.class);
+        this.memberTable = memberPersister.getTableName();
+        this.usernameColumn = memberPersister.getPropertyColumnNames("username")[0];
+        this.ageColumn = memberPersister.getPropertyColumnNames("age")[0];
+        this.teamIdColumn = memberPersister.getPropertyColumnNames("team")[0];
+        this.teamTable = teamPersister.getTableName();
+        this.teamNameColumn = teamPersister.getPropertyColumnNames("name")[0];
+    }
+
+    @Scheduled(initialDelayString = "${querydsl.index-advisor.interval:PT10M}",
+            fixedDelayString = "${querydsl.index-advisor.interval:PT10M}")
+    public void scheduledAnalyze() {
+        if (!enabled) {
+            return;
+        }
+        Report report = analyze(autoCreate);
+        for (Recommendation recommendation : report.getRecommendations()) {
+            log.info("index recommendation. {}", recommendation);
+        }
+    }
+
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    public Report analyze(boolean createIndexes) {
+        Map<String, List<List<String>>> existing = new LinkedHashMap<>();
+        existing.put(memberTable, indexes(memberTable));
+        existing.put(teamTable, indexes(teamTable));
+
+        List<ShapeAnalysis> shapes = new ArrayList<>();
+        Map<String, Recommendation> recommendations = new LinkedHashMap<>();
+        for (Map.Entry<MemberSearchShape, Long> entry : hotShapes().entrySet()) {
+            MemberSearchShape shape = entry.getKey();
+            String contentSql = SqlCapture.capture(() -> contentQuery(sample(shape)).fetch());
+            String countSql = SqlCapture.capture(() -> countQuery(sample(shape)).fetchOne());
+            if (contentSql == null || countSql == null) {
+                continue;
+            }
+            shapes.add(new ShapeAnalysis(shape, entry.getValue(), explain(contentSql, shape), explain(countSql, shape)));
+
+            for (IndexColumns candidate : candidates(shape)) {
+                if (isCovered(existing.get(candidate.table), candidate.columns)) {
+                    continue;
+                }
+                recommendations.computeIfAbsent(candidate.key(), key -> new Recommendation(candidate))
+                        .addShape(shape.getName(), entry.getValue());
+            }
+        }
+        List<Recommendation> result = withoutPrefixes(recommendations.values());
+
+        if (createIndexes && !result.isEmpty()) {
+            for (Recommendation recommendation : result) {
+                jdbcTemplate.execute(recommendation.getDdl());
+                recommendation.created = true;
+                log.info("index created. {}", recommendation.getDdl());
+            }
+            for (ShapeAnalysis analysis : shapes) {
+                MemberSearchCondition sample = sample(analysis.shape);
+                analysis.planAfter = explain(SqlCapture.capture(() -> contentQuery(sample).fetch()), analysis.shape);
+                analysis.countPlanAfter = explain(SqlCapture.capture(() -> countQuery(sample).fetchOne()), analysis.shape);
+            }
+        }
+
+        Report report = new Report(LocalDateTime.now(), shapes, result);
+        lastReport = report;
+        return report;
+    }
+
+    // repository.query 타이머의 shape 태그별 실행 횟수 합계 (많은 순)
+    private Map<MemberSearchShape, Long> hotShapes() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(RepositoryMetricsAspect.TIMER).timers()) {
+            String shape = timer.getId().getTag("shape");
+            if (shape != null && !"-".equals(shape) && !"none".equals(shape)) {
+                counts.merge(shape, timer.count(), Long::sum);
+            }
+        }
+        Map<MemberSearchShape, Long> result = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minExecutions)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(topShapes)
+                .forEach(entry -> result.put(shapeOf(entry.getKey()), entry.getValue()));
+        return result;
+    }
+
+    private static MemberSearchShape shapeOf(String name) {
+        for (int i = 0; i < MemberSearchShape.COUNT; i++) {
+            if (MemberSearchShape.of(i).getName().equals(name)) {
+                return MemberSearchShape.of(i);
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 검색 조건 모양입니다. shape=" + name);
+    }
+
+    // MemberRepositoryImpl.searchPageSimple, searchPageComplex 의 content 쿼리와 같은 모양
+    private JPAQuery<MemberTeamDto> contentQuery(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where(condition))
+                // 정렬 조건이 없는 페이지 요청의 정렬 (MemberSort)
+                .orderBy(member.id.asc())
+                .offset(SAMPLE_PAGE.getOffset())
+                .limit(SAMPLE_PAGE.getPageSize());
+    }
+
+    // 페이징 검색의 count 쿼리 (사용하지 않는 team left join 제거)
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        return CountQueries.withoutUnusedJoins(em, queryFactory, queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where(condition)));
+    }
+
+    private static Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                condition.getUsername() != null ? member.username.eq(condition.getUsername()) : null,
+                condition.getTeamName() != null ? team.name.eq(condition.getTeamName()) : null,
+                condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null
+        };
+    }
+
+    // SQL 만 얻기 위한 값 (실행하지 않음), EXPLAIN 에도 같은 순서로 바인딩한다.
+    private static MemberSearchCondition sample(MemberSearchShape shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            condition.setUsername("member1");
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            condition.setTeamName("teamA");
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE)) {
+            condition.setAgeGoe(0);
+        }
+        if (shape.has(MemberSearchShape.AGE_LOE)) {
+            condition.setAgeLoe(100);
+        }
+        return condition;
+    }
+
+    private String explain(String sql, MemberSearchShape shape) {
+        MemberSearchCondition sample = sample(shape);
+        List<Object> args = new ArrayList<>(4);
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            args.add(sample.getUsername());
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            args.add(sample.getTeamName());
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE)) {
+            args.add(sample.getAgeGoe());
+        }
+        if (shape.has(MemberSearchShape.AGE_LOE)) {
+            args.add(sample.getAgeLoe());
+        }
+        // 나머지 파라미터는 content 쿼리의 offset, limit
+        for (long i = sql.chars().filter(c -> c == '?').count() - args.size(); i > 0; i--) {
+            args.add(SAMPLE_PAGE.getPageSize());
+        }
+        StringJoiner plan = new StringJoiner("\n");
+        jdbcTemplate.query("explain " + sql, rs -> {
+            plan.add(rs.getString(1));
+        }, args.toArray());
+        return plan.toString();
+    }
+
+    // 같음 조건 컬럼 → 범위 조건 컬럼 순서
+    private List<IndexColumns> candidates(MemberSearchShape shape) {
+        List<String> memberColumns = new ArrayList<>();
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            memberColumns.add(usernameColumn);
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            memberColumns.add(teamIdColumn);
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE) || shape.has(MemberSearchShape.AGE_LOE)) {
+            memberColumns.add(ageColumn);
+        }
+
+        List<IndexColumns> result = new ArrayList<>();
+        if (!memberColumns.isEmpty()) {
+            result.add(new IndexColumns(memberTable, memberColumns));
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            result.add(new IndexColumns(teamTable, List.of(teamNameColumn)));
+        }
+        return result;
+    }
+
+    private static boolean isCovered(List<List<String>> indexes, List<String> columns) {
+        for (List<String> index : indexes) {
+            if (index.size() >= columns.size() && index.subList(0, columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // (username) 과 (username, age) 가 함께 추천되면 (username, age) 하나로 충분하다.
+    private static List<Recommendation> withoutPrefixes(Collection<Recommendation> recommendations) {
+        List<Recommendation> result = new ArrayList<>();
+        for (Recommendation recommendation : recommendations) {
+            boolean covered = false;
+            for (Recommendation other : recommendations) {
+                if (other != recommendation
+                        && other.table.equals(recommendation.table)
+                        && other.columns.size() > recommendation.columns.size()
+                        && other.columns.subList(0, recommendation.columns.size()).equals(recommendation.columns)) {
+                    other.shapes.putAll(recommendation.shapes);
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                result.add(recommendation);
+            }
+        }
+        return result;
+    }
+
+    // 테이블의 인덱스별 컬럼 목록 (소문자, 순서대로)
+    private List<List<String>> indexes(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<List<List<String>>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, name, false, false)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (indexName == null || column == null) {
+                        continue;
+                    }
+                    indexes.computeIfAbsent(indexName, key -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                }
+            }
+            List<List<String>> result = new ArrayList<>();
+            for (TreeMap<Short, String> columns : indexes.values()) {
+                result.add(new ArrayList<>(columns.values()));
+            }
+            return result;
+        });
+    }
+
+    @Getter
+    @ToString
+    public static class Report {
+        private final LocalDateTime analyzedAt;
+        private final List<ShapeAnalysis> shapes;
+        private final List<Recommendation> recommendations;
+
+        private Report(LocalDateTime analyzedAt, List<ShapeAnalysis> shapes, List<Recommendation> recommendations) {
+            this.analyzedAt = analyzedAt;
+            this.shapes = shapes;
+            this.recommendations = recommendations;
+        }
+    }
+
+    @Getter
+    public static class ShapeAnalysis {
+        @Getter(AccessLevel.NONE)
+        private final MemberSearchShape shape;
+        private final String name;
+        private final long executions;
+        // content 쿼리, count 쿼리 실행 계획
+        private final String plan;
+        private final String countPlan;
+        // H2 실행 계획의 tableScan 은 인덱스를 사용하지 않는 전체 스캔
+        private final boolean fullScan;
+        private String planAfter;
+        private String countPlanAfter;
+
+        private ShapeAnalysis(MemberSearchShape shape, long executions, String plan, String countPlan) {
+            this.shape = shape;
+            this.name = shape.getName();
+            this.executions = executions;
+            this.plan = plan;
+            this.countPlan = countPlan;
+            this.fullScan = plan.contains("tableScan") || countPlan.contains("tableScan");
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class Recommendation {
+        private final String table;
+        private final List<String> columns;
+        private final String indexName;
+        private final String ddl;
+        // 이 인덱스가 필요한 검색 조건 모양과 실행 횟수
+        private final Map<String, Long> shapes = new LinkedHashMap<>();
+        private boolean created;
+
+        private Recommendation(IndexColumns index) {
+            this.table = index.table;
+            this.columns = index.columns;
+            this.indexName = "idx_" + index.table + "_" + String.join("_", index.columns);
+            this.ddl = "create index " + indexName + " on " + index.table + " (" + String.join(", ", index.columns) + ")";
+        }
+
+        private void addShape(String shape, long executions) {
+            shapes.put(shape, executions);
+        }
+    }
+
+    private static class IndexColumns {
+        private final String table;
+        private final List<String> columns;
+
+        private IndexColumns(String table, List<String> columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        private String key() {
+            return table + "(" + String.join(",", columns) + ")";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * GET /actuator/indexadvisor : 마지막 분석 결과 (없으면 지금 분석)
+ * POST /actuator/indexadvisor : 지금 분석 (인덱스는 만들지 않음)
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+@RequiredArgsConstructor
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @ReadOperation
+    public IndexAdvisor.Report report() {
+        IndexAdvisor.Report report = indexAdvisor.getLastReport();
+        return report != null ? report : indexAdvisor.analyze(false);
+    }
+
+    @WriteOperation
+    public IndexAdvisor.Report analyze() {
+        return indexAdvisor.analyze(false);
+    }
+}
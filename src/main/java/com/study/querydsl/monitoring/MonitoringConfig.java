@@ -0,0 +1,19 @@
+package com.study.querydsl.monitoring;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MonitoringConfig {
+
+    // 하이버네이트는 StatementInspector 를 하나만 받으므로 SQL 캡처(EXPLAIN 용), SQL 수 집계, N+1 감지를 차례로 호출한다.
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(NPlusOneDetector nPlusOneDetector) {
+        StatementCounter statementCounter = new StatementCounter();
+        StatementInspector inspector = sql -> nPlusOneDetector.inspect(statementCounter.inspect(SqlCapture.inspect(sql)));
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
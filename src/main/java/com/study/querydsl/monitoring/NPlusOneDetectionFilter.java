@@ -0,0 +1,33 @@
+package com.study.querydsl.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * HTTP 요청 하나를 N+1 감지 범위로 묶는다.
+ * OSIV(open-in-view) 로 트랜잭션 밖 컨트롤러, 뷰에서 발생하는 지연 로딩도 함께 센다.
+ */
+@Component
+@RequiredArgsConstructor
+public class NPlusOneDetectionFilter extends OncePerRequestFilter {
+
+    private final NPlusOneDetector detector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        NPlusOneDetector.Scope scope = detector.openRequestScope();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            detector.close(scope);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * N+1 조회 감지
+ * HTTP 요청(NPlusOneDetectionFilter) 또는 트랜잭션 단위로 실행한 SQL 을 세고,
+ * 하이버네이트가 엔티티, 컬렉션을 로딩하면서(지연 로딩, em.find, 즉시 로딩 연관관계) 실행한
+ * 같은 모양의 where 조건 select 가 threshold 번 이상 반복되면 N+1 로 판단한다.
+ * ex) 회원 목록을 돌면서 member.getTeam().getName() 을 호출 → select ... from team where team_id=? 반복
+ * 하이버네이트는 파라미터를 ? 로 바인딩하므로 같은 연관관계 로딩은 SQL 문자열이 같다.
+ * 직접 실행한 JPQL, Querydsl 쿼리는 파라미터만 바꿔 반복하는 것이 정상일 수 있으므로(청크 조회, 페이지 순회) 세지 않는다.
+ * - mode=log : 경고 로그 (운영)
+ * - mode=fail : NPlusOneQueryException 으로 해당 SQL 실행을 실패시킴 (테스트)
+ * - mode=off : 감지하지 않음
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector implements StatementInspector {
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    private static final String APPLICATION_PACKAGE = "com.study.querydsl.";
+    private static final String MONITORING_PACKAGE = "com.study.querydsl.monitoring.";
+    // 엔티티, 컬렉션 로더 (SingleIdEntityLoader, CollectionLoader, 배치 로더)
+    private static final String LOADER_PACKAGE = "org.hibernate.loader.";
+    // 범위 하나에서 모양별로 세는 select 수, 넘으면 새 모양은 세지 않는다.
+    private static final int MAX_TRACKED_SELECTS = 1000;
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private final Mode mode;
+    private final int threshold;
+    private final Counter detected;
+    private final DistributionSummary requestStatements;
+    private final DistributionSummary transactionStatements;
+
+    public NPlusOneDetector(@Value("${querydsl.n-plus-one.mode:log}") String mode,
+                            @Value("${querydsl.n-plus-one.threshold:5}") int threshold,
+                            MeterRegistry meterRegistry) {
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.threshold = threshold;
+        this.detected = Counter.builder("n.plus.one.detected").register(meterRegistry);
+        this.requestStatements = DistributionSummary.builder("db.statements.per.scope")
+                .tag("scope", "request")
+                .register(meterRegistry);
+        this.transactionStatements = DistributionSummary.builder("db.statements.per.scope")
+                .tag("scope", "transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * HTTP 요청 단위 감지 시작, 이미 시작된 범위가 있으면 null
+     */
+    public Scope openRequestScope() {
+        if (mode == Mode.OFF || current.get() != null) {
+            return null;
+        }
+        Scope scope = new Scope(requestStatements);
+        current.set(scope);
+        return scope;
+    }
+
+    public void close(Scope scope) {
+        if (scope == null) {
+            return;
+        }
+        if (current.get() == scope) {
+            current.remove();
+        }
+        scope.summary.record(scope.total);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (mode == Mode.OFF) {
+            return sql;
+        }
+        Scope scope = currentScope();
+        if (scope != null) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    // 요청 범위가 없으면 트랜잭션이 끝날 때 닫히는 범위를 연다.
+    private Scope currentScope() {
+        Scope scope = current.get();
+        if (scope != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return scope;
+        }
+        Scope transactionScope = new Scope(transactionStatements);
+        current.set(transactionScope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                close(transactionScope);
+            }
+        });
+        return transactionScope;
+    }
+
+    public class Scope {
+        private final DistributionSummary summary;
+        private final Map<String, Integer> selects = new HashMap<>();
+        private final Set<String> reported = new HashSet<>();
+        private long total;
+
+        private Scope(DistributionSummary summary) {
+            this.summary = summary;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        private void record(String sql) {
+            total++;
+            String normalized = normalize(sql);
+            // 시퀀스 조회(select next value for ...)처럼 조건이 없는 select 와 직접 실행한 쿼리는 제외
+            if (!normalized.startsWith("select") || !normalized.contains(" where ") || !loading()) {
+                return;
+            }
+            if (selects.size() >= MAX_TRACKED_SELECTS && !selects.containsKey(normalized)) {
+                return;
+            }
+            int count = selects.merge(normalized, 1, Integer::sum);
+            if (count < threshold || !reported.add(normalized)) {
+                return;
+            }
+
+            detected.increment();
+            String message = "N+1 조회 의심: 같은 select 가 " + count + "번 실행되었습니다. (fetch join, @EntityGraph, batch size 확인)"
+                    + " caller=" + caller().orElse("unknown") + " sql=" + normalized;
+            if (mode == Mode.FAIL) {
+                throw new NPlusOneQueryException(message);
+            }
+            log.warn(message);
+        }
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // 하이버네이트 로더 안에서 실행한 SQL 인지 (직접 실행한 쿼리의 결과를 처리하면서 즉시 로딩한 경우 포함)
+    private static boolean loading() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .anyMatch(frame -> frame.getClassName().startsWith(LOADER_PACKAGE)));
+    }
+
+    // SQL 을 실행하게 만든 애플리케이션 코드 위치 (스프링, 하이버네이트 프록시 클래스 제외)
+    private static Optional<String> caller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(MONITORING_PACKAGE)
+                        && !frame.getClassName().contains("$$")
+                        && !frame.getClassName().contains("$HibernateProxy"))
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .findFirst());
+    }
+}
@@ -0,0 +1,12 @@
+package com.study.querydsl.monitoring;
+
+/**
+ * N+1 조회가 감지되었을 때 (querydsl.n-plus-one.mode=fail)
+ * 스프링의 예외 변환(IllegalStateException → InvalidDataAccessApiUsageException)을 거치지 않도록 RuntimeException 을 상속한다.
+ */
+public class NPlusOneQueryException extends RuntimeException {
+
+    public NPlusOneQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,202 @@
+package com.study.querydsl.monitoring;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAQueryMixin;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Querydsl 조회 쿼리 실행 전 QueryMetadata 검사 (ExtendedJPAQueryFactory 로 만든 쿼리와 CountQueries 가 만든 count 쿼리)
+ * - UNBOUNDED_ENTITY_FETCH : limit 없이 엔티티 목록 조회 (fetch), fetchOne 과 stream/iterate 는 제외
+ * - CARTESIAN : from 절 루트가 여러 개인데 루트끼리 비교하는 조건이 없음 (ex. from(member, team) 에 where 없음)
+ * - FETCH_JOIN_PAGINATION : 컬렉션 fetch join + limit/offset (하이버네이트가 전체를 읽어서 메모리에서 페이징)
+ * - mode=log : 경고 로그, mode=fail : QueryGuardException, mode=off : 검사하지 않음
+ * 그 외에 fetch() 결과가 maxRows 를 넘으면 mode(off 제외)와 상관없이 QueryGuardException 으로 실패시킨다.
+ * (maxRows + 1 건까지만 조회하므로 잘못된 요청 하나가 전체 테이블을 메모리에 올리지 않는다. 0 이면 제한 없음)
+ * 미리 직렬화한 JPQL 을 실행하는 MemberSearchTemplates.search 에도 같은 maxRows 를 적용한다.
+ */
+@Slf4j
+@Component
+public class QueryGuard {
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    public enum Rule {
+        UNBOUNDED_ENTITY_FETCH, CARTESIAN, FETCH_JOIN_PAGINATION
+    }
+
+    private final Mode mode;
+    private final int maxRows;
+    private final MeterRegistry meterRegistry;
+
+    public QueryGuard(@Value("${querydsl.query-guard.mode:log}") String mode,
+                      @Value("${querydsl.query-guard.max-rows:10000}") int maxRows,
+                      MeterRegistry meterRegistry) {
+        this.mode = Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.maxRows = maxRows;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * fetch() 에서 적용할 최대 조회 건수, 제한하지 않으면 0
+     */
+    public int getMaxRows() {
+        return mode == Mode.OFF ? 0 : maxRows;
+    }
+
+    /**
+     * @param list  목록을 메모리로 읽는 조회(fetch) 여부
+     * @param query 로그, 예외 메시지용 JPQL
+     */
+    public void check(QueryMetadata metadata, boolean list, Supplier<String> query) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        for (Rule rule : violations(metadata, list)) {
+            String message = "query guard " + rule + ": " + query.get();
+            if (mode == Mode.FAIL) {
+                count(rule, "rejected");
+                throw new QueryGuardException(message);
+            }
+            count(rule, "logged");
+            log.warn(message);
+        }
+    }
+
+    public QueryGuardException maxRowsExceeded(Supplier<String> query) {
+        count(null, "rejected");
+        return new QueryGuardException("query guard: 조회 결과가 max-rows(" + maxRows
+                + ")를 넘습니다. 조건을 좁히거나 페이징, stream 을 사용하세요: " + query.get());
+    }
+
+    List<Rule> violations(QueryMetadata metadata, boolean list) {
+        List<Rule> violations = new ArrayList<>();
+        QueryModifiers modifiers = metadata.getModifiers();
+        if (list && modifiers.getLimit() == null && metadata.getProjection() instanceof EntityPath) {
+            violations.add(Rule.UNBOUNDED_ENTITY_FETCH);
+        }
+        if (isCartesian(metadata)) {
+            violations.add(Rule.CARTESIAN);
+        }
+        if ((modifiers.getLimit() != null || modifiers.getOffset() != null) && hasCollectionFetchJoin(metadata)) {
+            violations.add(Rule.FETCH_JOIN_PAGINATION);
+        }
+        return violations;
+    }
+
+    // from 절 루트들이 where 의 비교 조건으로 모두 연결되어 있는지 (union-find)
+    private static boolean isCartesian(QueryMetadata metadata) {
+        List<Expression<?>> roots = new ArrayList<>();
+        for (JoinExpression join : metadata.getJoins()) {
+            if (join.getType() == JoinType.DEFAULT) {
+                roots.add(root(join.getTarget()));
+            }
+        }
+        if (roots.size() < 2) {
+            return false;
+        }
+        Map<Expression<?>, Expression<?>> parents = new HashMap<>();
+        roots.forEach(root -> parents.put(root, root));
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            connect(where, parents);
+        }
+        Set<Expression<?>> groups = new HashSet<>();
+        roots.forEach(root -> groups.add(find(parents, root)));
+        return groups.size() > 1;
+    }
+
+    private static void connect(Expression<?> expression, Map<Expression<?>, Expression<?>> parents) {
+        if (!(expression instanceof Operation<?> operation)) {
+            return;
+        }
+        if (operation.getOperator() == Ops.AND || operation.getOperator() == Ops.OR || operation.getOperator() == Ops.NOT) {
+            operation.getArgs().forEach(arg -> connect(arg, parents));
+            return;
+        }
+        // 비교 조건 하나에 등장하는 루트끼리 연결한다. ex) member.username = team.name
+        Set<Expression<?>> referenced = new HashSet<>();
+        collectRoots(operation, referenced);
+        referenced.retainAll(parents.keySet());
+        Expression<?> first = null;
+        for (Expression<?> root : referenced) {
+            if (first == null) {
+                first = root;
+            } else {
+                parents.put(find(parents, root), find(parents, first));
+            }
+        }
+    }
+
+    private static void collectRoots(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression instanceof Path<?> path) {
+            roots.add(path.getRoot());
+        } else if (expression instanceof Operation<?> operation) {
+            operation.getArgs().forEach(arg -> collectRoots(arg, roots));
+        }
+    }
+
+    private static Expression<?> find(Map<Expression<?>, Expression<?>> parents, Expression<?> root) {
+        Expression<?> parent = parents.get(root);
+        return parent == root ? root : find(parents, parent);
+    }
+
+    /**
+     * 컬렉션(또는 Map) fetch join 여부, 이 쿼리에 limit 을 주면 하이버네이트가 전체를 읽어서 메모리에서 페이징한다.
+     */
+    public static boolean hasCollectionFetchJoin(QueryMetadata metadata) {
+        for (JoinExpression join : metadata.getJoins()) {
+            if (join.hasFlag(JPAQueryMixin.FETCH)) {
+                Expression<?> target = join.getTarget();
+                if (target instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+                    target = alias.getArg(0);
+                }
+                if (target instanceof CollectionExpression || target instanceof MapExpression) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // from(member) 는 경로 그대로, from(member.team, alias) 같은 별칭은 별칭 경로
+    private static Expression<?> root(Expression<?> target) {
+        if (target instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+            return root(alias.getArg(1));
+        }
+        return target instanceof Path<?> path ? path.getRoot() : target;
+    }
+
+    private void count(Rule rule, String action) {
+        Counter.builder("query.guard")
+                .tag("rule", rule != null ? rule.name() : "MAX_ROWS")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,12 @@
+package com.study.querydsl.monitoring;
+
+/**
+ * 실행 전 검사에서 거부된 쿼리 (querydsl.query-guard.mode=fail) 또는 최대 조회 건수 초과
+ * 스프링의 예외 변환(IllegalStateException → InvalidDataAccessApiUsageException)을 거치지 않도록 RuntimeException 을 상속한다.
+ */
+public class QueryGuardException extends RuntimeException {
+
+    public QueryGuardException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,111 @@
+package com.study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/queries
+ * 리포지토리 메서드별 조회 통계를 총 실행 시간이 큰 순서로 보여준다. (부하 중 무거운 쿼리 찾기)
+ * 하이버네이트 Statistics(엔티티 로딩, 쿼리 캐시, flush 수 등)도 함께 보여준다.
+ */
+@Component
+@Endpoint(id = "queries")
+public class QueryMetricsEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final Statistics statistics;
+
+    public QueryMetricsEndpoint(MeterRegistry meterRegistry, EntityManagerFactory entityManagerFactory) {
+        this.meterRegistry = meterRegistry;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> queries() {
+        List<QueryStats> queries = new ArrayList<>();
+        for (Timer timer : meterRegistry.find(RepositoryMetricsAspect.TIMER).timers()) {
+            queries.add(new QueryStats(timer, meterRegistry));
+        }
+        queries.sort(Comparator.comparingDouble(QueryStats::getTotalMs).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queries", queries);
+        result.put("hibernate", hibernate());
+        return result;
+    }
+
+    private Map<String, Object> hibernate() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        result.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        result.put("queryExecutionMaxTimeMs", statistics.getQueryExecutionMaxTime());
+        result.put("queryExecutionMaxTimeQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("entityLoadCount", statistics.getEntityLoadCount());
+        result.put("entityFetchCount", statistics.getEntityFetchCount());
+        result.put("collectionLoadCount", statistics.getCollectionLoadCount());
+        result.put("collectionFetchCount", statistics.getCollectionFetchCount());
+        result.put("queryCacheHitCount", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMissCount", statistics.getQueryCacheMissCount());
+        result.put("secondLevelCacheHitCount", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMissCount", statistics.getSecondLevelCacheMissCount());
+        result.put("flushCount", statistics.getFlushCount());
+        return result;
+    }
+
+    @Getter
+    public static class QueryStats {
+        private final String repository;
+        private final String method;
+        private final String shape;
+        private final String exception;
+        private final long count;
+        private final double totalMs;
+        private final double meanMs;
+        private final double maxMs;
+        private final Map<String, Double> percentilesMs = new LinkedHashMap<>();
+        private final double meanRows;
+        private final double meanStatements;
+
+        private QueryStats(Timer timer, MeterRegistry meterRegistry) {
+            this.repository = timer.getId().getTag("repository");
+            this.method = timer.getId().getTag("method");
+            this.shape = timer.getId().getTag("shape");
+            this.exception = timer.getId().getTag("exception");
+            this.count = timer.count();
+            this.totalMs = timer.totalTime(TimeUnit.MILLISECONDS);
+            this.meanMs = timer.mean(TimeUnit.MILLISECONDS);
+            this.maxMs = timer.max(TimeUnit.MILLISECONDS);
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                percentilesMs.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+            }
+
+            Tags tags = Tags.of("repository", repository, "method", method, "shape", shape);
+            this.meanRows = mean(meterRegistry.find(RepositoryMetricsAspect.ROWS).tags(tags).summary());
+            this.meanStatements = mean(meterRegistry.find(RepositoryMetricsAspect.STATEMENTS).tags(tags).summary());
+        }
+
+        private static double mean(DistributionSummary summary) {
+            return summary != null ? summary.mean() : 0;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.study.querydsl.monitoring;
+
+import com.study.querydsl.dto.CursorSlice;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberSearchShape;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.BaseStream;
+
+/**
+ * 리포지토리 메서드별 실행 시간, 반환 row 수, 실행한 SQL 수를 기록한다.
+ * - repository.query : 실행 시간 (히스토그램, p50/p95/p99)
+ * - repository.query.rows : 반환 row 수 (Stream 처럼 호출 시점에 알 수 없는 경우 제외)
+ * - repository.query.statements : 메서드 안에서 실행한 SQL 수 (조회 실행기 스레드에서 실행한 병렬 count, 비동기 조회 포함)
+ * CompletableFuture 를 반환하는 비동기 메서드는 완료 시점까지의 시간, 결과 row 수, 그 조회에서 실행한 SQL 수를 기록한다.
+ * 대상 : 리포지토리 패키지의 커스텀 구현(*Impl), MemberJpaRepository, Querydsl4RepositorySupport 상속 클래스,
+ *        Spring Data 리포지토리 인터페이스 메서드(findAll, findById, 메서드 이름 쿼리 등, repository 태그는 인터페이스 이름)
+ * 태그 : repository, method, shape(MemberSearchCondition 의 쿼리 모양), exception
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    public static final String TIMER = "repository.query";
+    public static final String ROWS = "repository.query.rows";
+    public static final String STATEMENTS = "repository.query.statements";
+
+    private static final String NO_SHAPE = "-";
+
+    private final MeterRegistry meterRegistry;
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // 커스텀 구현(fragment)의 메서드는 *Impl 빈에서 기록하므로 Spring Data 프록시에서는 제외한다.
+    @Around("execution(public * *(..))"
+            + " && !execution(* com.study.querydsl.repository.support.Querydsl4RepositorySupport.*(..))"
+            + " && (within(com.study.querydsl.repository.*Impl)"
+            + " || within(com.study.querydsl.repository.MemberJpaRepository)"
+            + " || within(com.study.querydsl.repository.support.Querydsl4RepositorySupport+)"
+            + " || (this(org.springframework.data.repository.Repository)"
+            + " && (execution(* org.springframework.data..*.*(..)) || execution(* com.study.querydsl.repository.*Repository.*(..)))"
+            + " && !execution(* com.study.querydsl.repository.MemberPredicateRepository.*(..))))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = Tags.of(
+                "repository", repositoryName(joinPoint.getTarget()),
+                "method", joinPoint.getSignature().getName(),
+                "shape", shape(joinPoint.getArgs()));
+        if (CompletableFuture.class.isAssignableFrom(((MethodSignature) joinPoint.getSignature()).getReturnType())) {
+            return recordAsync(joinPoint, tags);
+        }
+        long statementsBefore = StatementCounter.current();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(tags, start, e, null, StatementCounter.current() - statementsBefore);
+            throw e;
+        }
+        record(tags, start, null, result, StatementCounter.current() - statementsBefore);
+        return result;
+    }
+
+    // 비동기 조회는 자신의 카운터로 실행하고(조회 실행기 스레드로 전달됨) 완료될 때 기록한다.
+    // 기록 후에 완료되는 future 를 반환하므로 호출한 쪽이 결과를 받았을 때는 이미 기록되어 있다.
+    private Object recordAsync(ProceedingJoinPoint joinPoint, Tags tags) throws Throwable {
+        AtomicLong statements = new AtomicLong();
+        long start = System.nanoTime();
+        AtomicLong previous = StatementCounter.replace(statements);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(tags, start, e, null, statements.get());
+            throw e;
+        } finally {
+            StatementCounter.replace(previous);
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            return future.whenComplete((value, error) -> record(tags, start, unwrap(error), value, statements.get()));
+        }
+        record(tags, start, null, result, statements.get());
+        return result;
+    }
+
+    private void record(Tags tags, long start, Throwable error, Object result, long statements) {
+        long elapsed = System.nanoTime() - start;
+        Timer.builder(TIMER)
+                .tags(tags)
+                .tag("exception", error != null ? error.getClass().getSimpleName() : "none")
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (statements >= 0) {
+            DistributionSummary.builder(STATEMENTS)
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+        long rows = rows(result);
+        if (rows >= 0) {
+            DistributionSummary.builder(ROWS)
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // Spring Data 리포지토리 프록시(JDK 프록시)는 리포지토리 인터페이스 이름을 사용한다.
+    private static String repositoryName(Object target) {
+        Class<?> type = target.getClass();
+        if (Proxy.isProxyClass(type)) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate != Repository.class && Repository.class.isAssignableFrom(candidate)) {
+                    return candidate.getSimpleName();
+                }
+            }
+        }
+        return type.getSimpleName();
+    }
+
+    private String shape(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                return MemberSearchShape.of((MemberSearchCondition) arg).getName();
+            }
+        }
+        return NO_SHAPE;
+    }
+
+    // 반환 row 수를 알 수 없으면 -1
+    private long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof CursorSlice) {
+            return ((CursorSlice<?>) result).getContent().size();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof BaseStream) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.study.querydsl.monitoring;
+
+/**
+ * 쿼리를 실행하지 않고 하이버네이트가 만드는 SQL 만 얻는다. (EXPLAIN 용)
+ * capture 중에는 StatementInspector 단계에서 SQL 을 기록하고 예외로 실행을 중단시킨다.
+ */
+public final class SqlCapture {
+
+    private static final ThreadLocal<String[]> CAPTURED = new ThreadLocal<>();
+
+    private SqlCapture() {
+    }
+
+    /**
+     * action 이 처음 실행하려는 SQL, SQL 을 실행하지 않았다면 null
+     */
+    public static String capture(Runnable action) {
+        String[] holder = new String[1];
+        CAPTURED.set(holder);
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            if (!isCaptured(e)) {
+                throw e;
+            }
+        } finally {
+            CAPTURED.remove();
+        }
+        return holder[0];
+    }
+
+    static String inspect(String sql) {
+        String[] holder = CAPTURED.get();
+        if (holder != null) {
+            holder[0] = sql;
+            throw new Captured();
+        }
+        return sql;
+    }
+
+    // 하이버네이트, 스프링이 감싸서 던질 수 있으므로 원인까지 확인한다.
+    private static boolean isCaptured(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof Captured) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Captured extends RuntimeException {
+        private Captured() {
+            super(null, null, false, false);
+        }
+    }
+}
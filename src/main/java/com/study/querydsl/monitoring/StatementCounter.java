@@ -0,0 +1,53 @@
+package com.study.querydsl.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 하이버네이트가 SQL 을 준비할 때마다 호출되는 StatementInspector
+ * 현재 스레드에서 실행한 SQL 문 수를 센다. (SQL 은 변경하지 않음)
+ * 조회 실행기 스레드의 작업은 propagate 로 작업을 넘긴 스레드의 카운터에 더한다. (병렬 count, 비동기 조회)
+ * 하이버네이트 설정으로 등록된다. (MonitoringConfig)
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicLong> COUNT = ThreadLocal.withInitial(AtomicLong::new);
+
+    /**
+     * 현재 스레드에서 지금까지 실행한 SQL 수, 호출 전후 값의 차이로 구간 내 실행 수를 구한다.
+     */
+    public static long current() {
+        return COUNT.get().get();
+    }
+
+    /**
+     * 작업을 넘긴 스레드의 카운터로 task 를 실행한다. (ThreadPoolTaskExecutor 의 TaskDecorator)
+     */
+    public static Runnable propagate(Runnable task) {
+        AtomicLong counter = COUNT.get();
+        return () -> {
+            AtomicLong previous = replace(counter);
+            try {
+                task.run();
+            } finally {
+                replace(previous);
+            }
+        };
+    }
+
+    /**
+     * 현재 스레드의 카운터를 바꾸고 이전 카운터를 반환한다. (finally 에서 이전 카운터로 되돌린다.)
+     */
+    static AtomicLong replace(AtomicLong counter) {
+        AtomicLong previous = COUNT.get();
+        COUNT.set(counter);
+        return previous;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get().incrementAndGet();
+        return sql;
+    }
+}
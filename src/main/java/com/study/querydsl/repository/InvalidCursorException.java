@@ -0,0 +1,13 @@
+package com.study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// InvalidSortException 과 같이 리포지토리 예외 변환 대상이 아니도록 RuntimeException 을 상속한다.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("잘못된 커서 값입니다. cursor=" + cursor);
+    }
+}
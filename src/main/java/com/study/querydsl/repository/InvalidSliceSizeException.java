@@ -0,0 +1,13 @@
+package com.study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// InvalidSortException 과 같이 400 으로 응답되도록 RuntimeException 을 상속한다.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSliceSizeException extends RuntimeException {
+
+    public InvalidSliceSizeException(int size) {
+        super("size 는 1 이상이어야 합니다. size=" + size);
+    }
+}
@@ -0,0 +1,13 @@
+package com.study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// 리포지토리 예외 변환(IllegalArgumentException → InvalidDataAccessApiUsageException) 대상이 아니어야 400 으로 응답되므로 RuntimeException 을 상속한다.
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSortException extends RuntimeException {
+
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,137 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 검색 count 결과 캐시
+ * 같은 검색 조건으로 페이지만 넘기는 경우 count 쿼리를 다시 실행하지 않는다.
+ * - 최대 개수를 넘으면 가장 오래 사용하지 않은 항목부터 제거 (LRU)
+ * - TTL 이 지난 항목은 조회 시 다시 계산
+ * - Member, Team 변경 및 벌크 연산 시 전체 무효화
+ */
+@Component
+public class MemberCountCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<MemberSearchCondition, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public MemberCountCache(@Value("${querydsl.count-cache.max-size:1000}") int maxSize,
+                            @Value("${querydsl.count-cache.ttl:30s}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchCondition, Entry> eldest) {
+                return size() > MemberCountCache.this.maxSize;
+            }
+        };
+
+        FunctionCounter.builder("member.count.cache", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("count 캐시 적중 수 (실행하지 않은 count 쿼리 수)")
+                .register(meterRegistry);
+        FunctionCounter.builder("member.count.cache", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("count 캐시 미스 수 (실행한 count 쿼리 수)")
+                .register(meterRegistry);
+        FunctionCounter.builder("member.count.cache.invalidations", invalidations, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("member.count.cache.size", this, MemberCountCache::size)
+                .register(meterRegistry);
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        MemberSearchCondition key = condition.normalize();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt < ttlNanos) {
+                hits.incrementAndGet();
+                return entry.count;
+            }
+        }
+
+        // count 쿼리는 락 밖에서 실행한다.
+        misses.incrementAndGet();
+        long generation = invalidations.get();
+        long count = countQuery.getAsLong();
+        synchronized (entries) {
+            // 실행 중에 무효화 되었다면 이전 데이터 기준 결과일 수 있으므로 저장하지 않는다.
+            if (generation == invalidations.get()) {
+                entries.put(key, new Entry(count, now));
+            }
+        }
+        return count;
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    // flush, 벌크 연산 시점에 바로 무효화
+    @EventListener
+    public void onChanged(EntityChangedEvent event) {
+        if (event.isAbout(Member.class, Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    // 트랜잭션 종료(커밋, 롤백) 후에도 한 번 더 무효화해서
+    // 트랜잭션 도중 다른 스레드가 채운 이전/미커밋 데이터 기준 count 를 버린다.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterCompletion(EntityChangedEvent event) {
+        if (event.isAbout(Member.class, Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long loadedAt;
+
+        private Entry(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.study.querydsl.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 회원 keyset 페이징용 커서
+ * 클라이언트에는 Base64 문자열(opaque)로만 노출하고, 정렬키가 다른 커서는 거부한다.
+ * - id 정렬 : "i|{memberId}"
+ * - age 정렬 : "a|{age}|{memberId}"
+ */
+class MemberCursor {
+
+    private static final String ID = "i";
+    private static final String AGE = "a";
+
+    private final Integer age;
+    private final long memberId;
+
+    private MemberCursor(Integer age, long memberId) {
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    static MemberCursor ofId(long memberId) {
+        return new MemberCursor(null, memberId);
+    }
+
+    static MemberCursor ofAge(int age, long memberId) {
+        return new MemberCursor(age, memberId);
+    }
+
+    Integer getAge() {
+        return age;
+    }
+
+    long getMemberId() {
+        return memberId;
+    }
+
+    String encode() {
+        String raw = age == null ? ID + "|" + memberId : AGE + "|" + age + "|" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static MemberCursor decodeId(String cursor) {
+        String[] parts = decode(cursor);
+        if (parts.length != 2 || !ID.equals(parts[0])) {
+            throw new InvalidCursorException(cursor);
+        }
+        return ofId(parseLong(parts[1], cursor));
+    }
+
+    static MemberCursor decodeAge(String cursor) {
+        String[] parts = decode(cursor);
+        if (parts.length != 3 || !AGE.equals(parts[0])) {
+            throw new InvalidCursorException(cursor);
+        }
+        return ofAge(parseInt(parts[1], cursor), parseLong(parts[2], cursor));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    // int 범위를 넘는 나이를 잘라서 다른 위치로 이동하지 않도록 거부한다.
+    private static int parseInt(String value, String cursor) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private static long parseLong(String value, String cursor) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
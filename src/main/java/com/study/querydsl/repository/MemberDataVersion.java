@@ -0,0 +1,98 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member, Team 데이터 버전 (조건부 GET 의 ETag 용도)
+ * 엔티티 변경(flush), 벌크 연산 시점과 트랜잭션 종료 후에 한 번씩 증가시키므로
+ * 트랜잭션 도중 이전 데이터로 만든 응답의 ETag 는 커밋 후 다시 맞지 않게 된다.
+ * 애플리케이션 안의 변경만 알 수 있으므로 인스턴스가 하나이고 DB 를 직접 수정하지 않는 경우에만 정확하다.
+ * (복제본 라우팅 시 복제 지연 동안 읽은 이전 데이터도 새 버전으로 캐시될 수 있다.)
+ * 재시작 전에 발급한 ETag 와 겹치지 않도록 시작 시각에서 출발한다.
+ */
+@Component
+public class MemberDataVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * 현재 버전과 조회 조건으로 만든 ETag, 조회 전에 호출해야 조회 도중 변경된 데이터가 이전 버전으로 캐시되지 않는다.
+     * 조건이 다른 조회가 같은 ETag 를 받으면 받지 않은 데이터에 304 로 응답하게 되므로
+     * 조건과 페이지를 정해진 순서로 직렬화(canonical form)한 문자열의 SHA-256 을 사용한다.
+     */
+    public String etag(String name, MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchCondition normalized = condition.normalize();
+        StringBuilder key = new StringBuilder();
+        append(key, name);
+        append(key, normalized.getUsername());
+        append(key, normalized.getTeamName());
+        append(key, normalized.getAgeGoe());
+        append(key, normalized.getAgeLoe());
+        if (pageable.isPaged()) {
+            append(key, pageable.getPageNumber());
+            append(key, pageable.getPageSize());
+        } else {
+            append(key, null);
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            append(key, order.getProperty());
+            append(key, order.getDirection());
+            append(key, order.isIgnoreCase());
+            append(key, order.getNullHandling());
+        }
+        return "\"" + Long.toHexString(current()) + "-" + digest(key) + "\"";
+    }
+
+    // 값마다 길이를 앞에 붙여서 구분자가 들어간 값도 다른 조건과 같은 문자열이 되지 않게 한다. (null 은 "-")
+    private static void append(StringBuilder key, Object value) {
+        if (value == null) {
+            key.append("-;");
+            return;
+        }
+        String text = value.toString();
+        key.append(text.length()).append(':').append(text).append(';');
+    }
+
+    private static String digest(CharSequence key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // 모든 JVM 은 SHA-256 을 지원해야 한다.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @EventListener
+    public void onChanged(EntityChangedEvent event) {
+        if (event.isAbout(Member.class, Team.class)) {
+            version.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterCompletion(EntityChangedEvent event) {
+        if (event.isAbout(Member.class, Team.class)) {
+            version.incrementAndGet();
+        }
+    }
+}
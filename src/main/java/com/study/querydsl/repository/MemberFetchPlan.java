@@ -0,0 +1,11 @@
+package com.study.querydsl.repository;
+
+/**
+ * Predicate 로 Member 엔티티를 조회할 때 team 을 함께 가져오는 방법
+ */
+public enum MemberFetchPlan {
+    // join fetch member.team (inner join 이 아닌 left join, 팀이 없는 회원도 조회)
+    TEAM_FETCH_JOIN,
+    // Member.withTeam 엔티티 그래프를 fetch graph 힌트로 적용
+    TEAM_ENTITY_GRAPH
+}
@@ -9,6 +9,7 @@ import com.study.querydsl.dto.QMemberTeamDto;
 import com.study.querydsl.entity.Member;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,9 +24,9 @@ public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = queryFactory;
     }
 
     public void save(Member member) {
@@ -61,6 +62,7 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
@@ -89,6 +91,7 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByWhereParam(MemberSearchCondition condition) {
         return queryFactory
                 .select(new QMemberTeamDto(
@@ -108,9 +111,14 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
-    //조립 예시
-    private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
-        return ageGoe(ageGoe).and(ageLoe(ageLoe));
+    //조립 예시, 한쪽 조건만 있으면 그 조건만 사용한다.
+    private BooleanExpression ageBetween(Integer ageGoe, Integer ageLoe) {
+        BooleanExpression goe = ageGoe(ageGoe);
+        BooleanExpression loe = ageLoe(ageLoe);
+        if (goe == null) {
+            return loe;
+        }
+        return loe == null ? goe : goe.and(loe);
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -0,0 +1,31 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Predicate;
+import com.study.querydsl.entity.Member;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * QuerydslPredicateExecutor 의 findAll(Predicate) 는 team 이 지연 로딩이라 N+1 이 발생하므로
+ * 같은 Predicate 로 team 을 한 번에 가져오거나 DTO 로 바로 조회하는 메서드를 제공한다.
+ * Pageable 의 정렬 키는 Member 기준 경로(id, username, age, team.id, team.name)만 허용하고
+ * 그 밖의 키는 InvalidSortException (400) 이다.
+ */
+public interface MemberPredicateRepository {
+
+    List<Member> findAllWith(Predicate predicate, MemberFetchPlan fetchPlan);
+
+    Page<Member> findAllWith(Predicate predicate, MemberFetchPlan fetchPlan, Pageable pageable);
+
+    /**
+     * ex) findAllAs(member.age.goe(20), new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+     * 프로젝션에서 team 별칭(QTeam.team)을 사용할 수 있도록 member.team 을 left join 한다.
+     * 엔티티를 영속성 컨텍스트에 올리지 않는다.
+     */
+    <T> List<T> findAllAs(Predicate predicate, FactoryExpression<T> projection);
+
+    <T> Page<T> findAllAs(Predicate predicate, FactoryExpression<T> projection, Pageable pageable);
+}
@@ -0,0 +1,79 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.support.CountQueries;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+public class MemberPredicateRepositoryImpl implements MemberPredicateRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public MemberPredicateRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+    }
+
+    @Override
+    public List<Member> findAllWith(Predicate predicate, MemberFetchPlan fetchPlan) {
+        return entityQuery(predicate, fetchPlan).fetch();
+    }
+
+    @Override
+    public Page<Member> findAllWith(Predicate predicate, MemberFetchPlan fetchPlan, Pageable pageable) {
+        return page(entityQuery(predicate, fetchPlan), pageable, fetchPlan == MemberFetchPlan.TEAM_FETCH_JOIN);
+    }
+
+    @Override
+    public <T> List<T> findAllAs(Predicate predicate, FactoryExpression<T> projection) {
+        return projectionQuery(predicate, projection).fetch();
+    }
+
+    @Override
+    public <T> Page<T> findAllAs(Predicate predicate, FactoryExpression<T> projection, Pageable pageable) {
+        return page(projectionQuery(predicate, projection), pageable, true);
+    }
+
+    private JPAQuery<Member> entityQuery(Predicate predicate, MemberFetchPlan fetchPlan) {
+        JPAQuery<Member> query = queryFactory.selectFrom(member);
+        if (fetchPlan == MemberFetchPlan.TEAM_FETCH_JOIN) {
+            query.leftJoin(member.team, team).fetchJoin();
+        } else {
+            query.setHint(AvailableHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(Member.WITH_TEAM));
+        }
+        return query.where(predicate);
+    }
+
+    private <T> JPAQuery<T> projectionQuery(Predicate predicate, FactoryExpression<T> projection) {
+        return queryFactory
+                .select(projection)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(predicate);
+    }
+
+    // count 쿼리는 fetch join, 엔티티 그래프 없이 만들고, 사용하지 않는 team join 은 제거된다.
+    // 정렬은 MemberSort 의 허용 목록만 사용한다. (목록에 없는 키는 400)
+    private <T> Page<T> page(JPAQuery<T> query, Pageable pageable, boolean teamJoined) {
+        JPAQuery<Long> countQuery = CountQueries.from(em, queryFactory, query);
+        query.orderBy(MemberSort.ofPaths(pageable.getSort(), teamJoined));
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        List<T> content = query.fetch();
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+}
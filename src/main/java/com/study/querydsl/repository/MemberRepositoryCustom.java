@@ -1,11 +1,14 @@
 package com.study.querydsl.repository;
 
+import com.study.querydsl.dto.CursorSlice;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
@@ -13,4 +16,23 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    // 비동기 검색, 별도 스레드에서 각자의 읽기 전용 트랜잭션으로 실행 (동시 실행 수 초과 시 TaskRejectedException 으로 실패)
+    CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCondition condition);
+
+    CompletableFuture<Page<MemberTeamDto>> searchPageSimpleAsync(MemberSearchCondition condition, Pageable pageable);
+
+    CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable);
+
+    // content 쿼리와 count 쿼리를 동시에 실행 (count 는 별도 스레드, 읽기 전용 트랜잭션)
+    Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable);
+
+    // offset 대신 member.id 기준 keyset(seek) 페이징, count 쿼리 없음
+    CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, String cursor, int size);
+
+    // age, member.id 순으로 정렬하는 keyset 페이징
+    CursorSlice<MemberTeamDto> searchSliceByAge(MemberSearchCondition condition, String cursor, int size);
+
+    // 대용량 조회용, 결과를 List 로 모으지 않고 JDBC fetch size 단위로 읽어온다. (트랜잭션 안에서 사용 후 close 필요)
+    Stream<MemberTeamDto> streamSearch(MemberSearchCondition condition, int fetchSize);
 }
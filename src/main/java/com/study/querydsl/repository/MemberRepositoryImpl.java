@@ -3,15 +3,23 @@ package com.study.querydsl.repository;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.CursorSlice;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.repository.support.AsyncQueryExecutor;
+import com.study.querydsl.repository.support.CountQueries;
+import com.study.querydsl.repository.support.ParallelCountExecutor;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import static com.study.querydsl.entity.QMember.member;
 import static com.study.querydsl.entity.QTeam.team;
@@ -19,30 +27,38 @@ import static org.springframework.util.StringUtils.hasText;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final int MAX_SLICE_SIZE = 1000;
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final ParallelCountExecutor parallelCountExecutor;
+    private final MemberSearchTemplates searchTemplates;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final MemberTeamView memberTeamView;
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory queryFactory, MemberCountCache countCache,
+                                ParallelCountExecutor parallelCountExecutor, MemberSearchTemplates searchTemplates,
+                                AsyncQueryExecutor asyncQueryExecutor, MemberTeamView memberTeamView) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.countCache = countCache;
+        this.parallelCountExecutor = parallelCountExecutor;
+        this.searchTemplates = searchTemplates;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.memberTeamView = memberTeamView;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        // 메모리 뷰(querydsl.member-view.enabled)를 사용할 수 있으면 DB 를 조회하지 않는다.
+        List<MemberTeamDto> fromView = memberTeamView.search(condition);
+        if (fromView != null) {
+            return fromView;
+        }
+        // 조건 모양별로 캐시된 JPQL 에 값만 바인딩해서 실행한다.
+        return searchTemplates.search(condition);
     }
 
     private BooleanExpression usernameEq(String username) {
@@ -62,6 +78,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
@@ -77,6 +94,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(MemberSort.of(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
@@ -92,10 +110,15 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageLoe(condition.getAgeLoe())
                 );
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        // teamName 조건이 없으면 team left join 은 count 쿼리에서 제거된다.
+        JPAQuery<Long> optimizedCountQuery = CountQueries.withoutUnusedJoins(em, queryFactory, countQuery);
+        // 같은 조건으로 페이지만 바꾸는 경우 캐시된 count 를 사용한다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(condition, optimizedCountQuery::fetchOne));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
@@ -111,6 +134,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(MemberSort.of(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
@@ -126,7 +150,64 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageLoe(condition.getAgeLoe())
                 );
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        // teamName 조건이 없으면 team left join 은 count 쿼리에서 제거된다.
+        JPAQuery<Long> optimizedCountQuery = CountQueries.withoutUnusedJoins(em, queryFactory, countQuery);
+        // 같은 조건으로 페이지만 바꾸는 경우 캐시된 count 를 사용한다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(condition, optimizedCountQuery::fetchOne));
+    }
+
+    // 트랜잭션은 AsyncQueryExecutor 가 실행 스레드에서 시작한다.
+    @Override
+    public CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCondition condition) {
+        return asyncQueryExecutor.submit(() -> search(condition));
+    }
+
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageSimpleAsync(MemberSearchCondition condition, Pageable pageable) {
+        return asyncQueryExecutor.submit(() -> searchPageSimple(condition, pageable));
+    }
+
+    @Override
+    public CompletableFuture<Page<MemberTeamDto>> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable) {
+        return asyncQueryExecutor.submit(() -> searchPageComplex(condition, pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPageParallel(MemberSearchCondition condition, Pageable pageable) {
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(MemberSort.of(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        JPAQuery<Long> countQuery = CountQueries.withoutUnusedJoins(em, queryFactory, queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ));
+
+        // EntityManager 는 스레드의 트랜잭션에 위임하는 프록시이므로 count 쿼리는 실행 스레드의 트랜잭션에서 실행된다.
+        return parallelCountExecutor.getPage(contentQuery::fetch, pageable,
+                () -> countCache.get(condition, countQuery::fetchOne));
     }
 
     //CountQuery 최적화
@@ -161,7 +242,116 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageLoe(condition.getAgeLoe())
                 );
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        // teamName 조건이 없으면 team left join 은 count 쿼리에서 제거된다.
+        JPAQuery<Long> optimizedCountQuery = CountQueries.withoutUnusedJoins(em, queryFactory, countQuery);
+        // 같은 조건으로 페이지만 바꾸는 경우 캐시된 count 를 사용한다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countCache.get(condition, optimizedCountQuery::fetchOne));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<MemberTeamDto> searchSlice(MemberSearchCondition condition, String cursor, int size) {
+        int limit = sliceSize(size);
+        MemberCursor after = hasText(cursor) ? MemberCursor.decodeId(cursor) : null;
+
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        after != null ? member.id.gt(after.getMemberId()) : null
+                )
+                .orderBy(member.id.asc())
+                // 한 건 더 조회해서 다음 페이지 존재 여부를 판단한다.
+                .limit(limit + 1)
+                .fetch();
+
+        if (content.size() <= limit) {
+            return new CursorSlice<>(content, null);
+        }
+        List<MemberTeamDto> page = content.subList(0, limit);
+        MemberTeamDto last = page.get(limit - 1);
+        return new CursorSlice<>(page, MemberCursor.ofId(last.getMemberId()).encode());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<MemberTeamDto> searchSliceByAge(MemberSearchCondition condition, String cursor, int size) {
+        int limit = sliceSize(size);
+        MemberCursor after = hasText(cursor) ? MemberCursor.decodeAge(cursor) : null;
+
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        afterAge(after)
+                )
+                .orderBy(member.age.asc(), member.id.asc())
+                .limit(limit + 1)
+                .fetch();
+
+        if (content.size() <= limit) {
+            return new CursorSlice<>(content, null);
+        }
+        List<MemberTeamDto> page = content.subList(0, limit);
+        MemberTeamDto last = page.get(limit - 1);
+        return new CursorSlice<>(page, MemberCursor.ofAge(last.getAge(), last.getMemberId()).encode());
+    }
+
+    @Override
+    public Stream<MemberTeamDto> streamSearch(MemberSearchCondition condition, int fetchSize) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .stream();
+    }
+
+    // (age, id) > (lastAge, lastId)
+    private BooleanExpression afterAge(MemberCursor after) {
+        if (after == null) {
+            return null;
+        }
+        return member.age.gt(after.getAge())
+                .or(member.age.eq(after.getAge()).and(member.id.gt(after.getMemberId())));
+    }
+
+    private int sliceSize(int size) {
+        if (size < 1) {
+            throw new InvalidSliceSizeException(size);
+        }
+        return Math.min(size, MAX_SLICE_SIZE);
     }
 
 }
@@ -0,0 +1,88 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 의 어떤 필드가 채워졌는지에 따른 쿼리 모양 (4개 필드 → 16가지)
+ * 값이 아니라 where 절 구조만 나타내므로 같은 모양의 조회는 같은 JPQL 을 사용한다.
+ */
+public final class MemberSearchShape {
+
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+
+    public static final int COUNT = 16;
+
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[COUNT];
+
+    static {
+        for (int i = 0; i < COUNT; i++) {
+            SHAPES[i] = new MemberSearchShape(i);
+        }
+    }
+
+    private final int bits;
+    private final String name;
+
+    private MemberSearchShape(int bits) {
+        this.bits = bits;
+        StringJoiner joiner = new StringJoiner("+");
+        if ((bits & USERNAME) != 0) {
+            joiner.add("username");
+        }
+        if ((bits & TEAM_NAME) != 0) {
+            joiner.add("teamName");
+        }
+        if ((bits & AGE_GOE) != 0) {
+            joiner.add("ageGoe");
+        }
+        if ((bits & AGE_LOE) != 0) {
+            joiner.add("ageLoe");
+        }
+        this.name = bits == 0 ? "none" : joiner.toString();
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        int bits = 0;
+        if (hasText(condition.getUsername())) {
+            bits |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            bits |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            bits |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            bits |= AGE_LOE;
+        }
+        return SHAPES[bits];
+    }
+
+    public static MemberSearchShape of(int bits) {
+        return SHAPES[bits];
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public boolean has(int field) {
+        return (bits & field) != 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,174 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.monitoring.QueryGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 조건 모양(MemberSearchShape)별로 미리 만들어 둔 JPQL 템플릿
+ * 모양마다 처음 한 번만 Querydsl 로 표현식을 만들고 JPQL 로 직렬화해 두고,
+ * 이후 요청은 파라미터 값만 바인딩해서 실행한다.
+ * GuardedJPAQuery 를 거치지 않으므로 search 는 직접 QueryGuard 의 max-rows 를 적용한다. (streamRows 는 제외)
+ */
+@Component
+public class MemberSearchTemplates {
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private static final FactoryExpression<MemberTeamDto> PROJECTION = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final EntityManager em;
+    private final QueryGuard guard;
+    private final JPQLTemplates templates;
+    private final AtomicReferenceArray<Template> cache = new AtomicReferenceArray<>(MemberSearchShape.COUNT);
+    private final Counter[] usage = new Counter[MemberSearchShape.COUNT];
+
+    public MemberSearchTemplates(EntityManager em, QueryGuard guard, MeterRegistry meterRegistry) {
+        this.em = em;
+        this.guard = guard;
+        this.templates = HQLTemplates.DEFAULT;
+        for (int i = 0; i < MemberSearchShape.COUNT; i++) {
+            usage[i] = Counter.builder("member.search.shape")
+                    .description("검색 조건 모양별 실행 횟수")
+                    .tag("shape", MemberSearchShape.of(i).getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        // GuardedJPAQuery.fetch() 와 같이 maxRows + 1 건까지만 읽고 넘으면 실패시킨다.
+        int maxRows = guard.getMaxRows();
+        Query query = createQuery(condition);
+        if (maxRows > 0) {
+            query.setMaxResults(maxRows + 1);
+        }
+        List<?> rows = query.getResultList();
+        if (maxRows > 0 && rows.size() > maxRows) {
+            throw guard.maxRowsExceeded(() -> template(MemberSearchShape.of(condition)).jpql);
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(PROJECTION.newInstance((Object[]) row));
+        }
+        return result;
+    }
+
+    /**
+     * DTO 를 만들지 않고 PROJECTION 컬럼 순서의 Object[] 를 fetchSize 단위로 읽어온다. (트랜잭션 안에서 사용 후 close 필요)
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<Object[]> streamRows(MemberSearchCondition condition, int fetchSize) {
+        return createQuery(condition)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    public FactoryExpression<MemberTeamDto> getProjection() {
+        return PROJECTION;
+    }
+
+    private Query createQuery(MemberSearchCondition condition) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        usage[shape.getBits()].increment();
+        Template template = template(shape);
+
+        Map<ParamExpression<?>, Object> params = new HashMap<>(4);
+        if (shape.has(MemberSearchShape.USERNAME)) {
+            params.put(USERNAME, condition.getUsername());
+        }
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            params.put(TEAM_NAME, condition.getTeamName());
+        }
+        if (shape.has(MemberSearchShape.AGE_GOE)) {
+            params.put(AGE_GOE, condition.getAgeGoe());
+        }
+        if (shape.has(MemberSearchShape.AGE_LOE)) {
+            params.put(AGE_LOE, condition.getAgeLoe());
+        }
+
+        Query query = em.createQuery(template.jpql);
+        JPAUtil.setConstants(query, template.constants, params);
+        return query;
+    }
+
+    // 모양별 실행 횟수
+    public long getUsage(MemberSearchShape shape) {
+        return (long) usage[shape.getBits()].count();
+    }
+
+    private Template template(MemberSearchShape shape) {
+        Template template = cache.get(shape.getBits());
+        if (template == null) {
+            // 동시에 만들어져도 결과가 같으므로 먼저 저장된 것을 사용한다.
+            cache.compareAndSet(shape.getBits(), null, build(shape));
+            template = cache.get(shape.getBits());
+        }
+        return template;
+    }
+
+    private Template build(MemberSearchShape shape) {
+        JPAQuery<MemberTeamDto> query = new JPAQuery<>(em, templates)
+                .select(PROJECTION)
+                .from(member);
+        // team.name 조건이 있으면 팀이 없는 회원은 어차피 제외되므로 inner join 으로 바꿔서
+        // DB 가 team(name) 인덱스로 팀부터 찾고 member(team_id, ...) 인덱스로 회원을 찾을 수 있게 한다.
+        if (shape.has(MemberSearchShape.TEAM_NAME)) {
+            query.join(member.team, team);
+        } else {
+            query.leftJoin(member.team, team);
+        }
+        query.where(shape.has(MemberSearchShape.USERNAME) ? member.username.eq(USERNAME) : null,
+                shape.has(MemberSearchShape.TEAM_NAME) ? team.name.eq(TEAM_NAME) : null,
+                shape.has(MemberSearchShape.AGE_GOE) ? member.age.goe(AGE_GOE) : null,
+                shape.has(MemberSearchShape.AGE_LOE) ? member.age.loe(AGE_LOE) : null);
+
+        JPQLSerializer serializer = new JPQLSerializer(templates, em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new Template(serializer.toString(), new ArrayList<>(serializer.getConstants()));
+    }
+
+    private static class Template {
+        private final String jpql;
+        private final List<Object> constants;
+
+        private Template(String jpql, List<Object> constants) {
+            this.jpql = jpql;
+            this.constants = constants;
+        }
+    }
+}
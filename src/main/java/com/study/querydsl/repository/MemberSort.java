@@ -0,0 +1,125 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 허용하는 정렬 키와 OrderSpecifier
+ * Querydsl.applyPagination 처럼 요청마다 PathBuilder 로 경로를 찾지 않고 미리 만들어 둔 OrderSpecifier 를 사용한다.
+ * - 목록에 없는 키나 ignoreCase 는 InvalidSortException (400)
+ *   (임의 컬럼으로 전체 결과를 정렬하는 쿼리를 막는다.)
+ * - 항상 member.id 를 마지막 정렬 기준으로 붙여서 같은 값끼리의 순서가 페이지마다 바뀌지 않게 한다.
+ */
+final class MemberSort {
+
+    /**
+     * 검색 페이지(MemberTeamDto), 정렬 키는 MemberTeamDto 필드 이름
+     */
+    private static final MemberSort SEARCH = new MemberSort("memberId", Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", team.id,
+            "teamName", team.name));
+
+    /**
+     * Predicate 조회(MemberPredicateRepository), 정렬 키는 Member 기준 경로
+     * 엔티티 그래프 조회에는 team 별칭이 없으므로 member.team 경로를 사용한다.
+     */
+    private static final MemberSort PATHS = new MemberSort("id", Map.of(
+            "id", member.id,
+            "username", member.username,
+            "age", member.age,
+            "team.id", member.team.id,
+            "team.name", member.team.name));
+
+    /**
+     * PATHS 와 같은 정렬 키, 이미 left join(member.team, team) 한 쿼리는 그 team 별칭으로 정렬한다.
+     * (member.team 경로를 사용하면 하이버네이트가 team 을 한 번 더 join 한다.)
+     */
+    private static final MemberSort JOINED_PATHS = new MemberSort("id", Map.of(
+            "id", member.id,
+            "username", member.username,
+            "age", member.age,
+            "team.id", team.id,
+            "team.name", team.name));
+
+    private static final OrderSpecifier<?> TIEBREAKER = member.id.asc();
+
+    private final String uniqueKey;
+    private final Map<String, ComparableExpressionBase<?>> keys;
+    private final Map<String, OrderSpecifier<?>> specifiers = new HashMap<>();
+
+    private MemberSort(String uniqueKey, Map<String, ComparableExpressionBase<?>> keys) {
+        this.uniqueKey = uniqueKey;
+        this.keys = new TreeMap<>(keys);
+        keys.forEach((property, path) -> {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                for (Sort.NullHandling nullHandling : Sort.NullHandling.values()) {
+                    specifiers.put(key(property, direction, nullHandling), specifier(path, direction, nullHandling));
+                }
+            }
+        });
+    }
+
+    /**
+     * 정렬 조건 + member.id 오름차순 (정렬 조건이 없으면 member.id 오름차순만)
+     */
+    static OrderSpecifier<?>[] of(Sort sort) {
+        return SEARCH.orderBy(sort);
+    }
+
+    /**
+     * of(Sort) 와 같고 정렬 키만 Member 기준 경로(username, age, team.name 등)를 사용한다.
+     *
+     * @param teamJoined 쿼리에 team 별칭(QTeam.team)으로 join 한 team 이 있는지
+     */
+    static OrderSpecifier<?>[] ofPaths(Sort sort, boolean teamJoined) {
+        return (teamJoined ? JOINED_PATHS : PATHS).orderBy(sort);
+    }
+
+    private OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean unique = false;
+        for (Sort.Order order : sort) {
+            OrderSpecifier<?> specifier = specifiers.get(
+                    key(order.getProperty(), order.getDirection(), order.getNullHandling()));
+            if (specifier == null || order.isIgnoreCase()) {
+                throw new InvalidSortException("지원하지 않는 정렬입니다. sort=" + order + ", 허용=" + keys.keySet());
+            }
+            orders.add(specifier);
+            unique |= order.getProperty().equals(uniqueKey);
+        }
+        if (!unique) {
+            orders.add(TIEBREAKER);
+        }
+        return orders.toArray(OrderSpecifier[]::new);
+    }
+
+    private static String key(String property, Sort.Direction direction, Sort.NullHandling nullHandling) {
+        return property + "|" + direction + "|" + nullHandling;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static OrderSpecifier<?> specifier(ComparableExpressionBase<?> path, Sort.Direction direction,
+                                               Sort.NullHandling nullHandling) {
+        Order order = direction.isAscending() ? Order.ASC : Order.DESC;
+        OrderSpecifier.NullHandling nulls = switch (nullHandling) {
+            case NATIVE -> OrderSpecifier.NullHandling.Default;
+            case NULLS_FIRST -> OrderSpecifier.NullHandling.NullsFirst;
+            case NULLS_LAST -> OrderSpecifier.NullHandling.NullsLast;
+        };
+        return new OrderSpecifier(order, path, nulls);
+    }
+}
@@ -0,0 +1,434 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 검색(search)용 메모리 뷰, member left join team 결과를 회원 id 별로 들고 있고
+ * 회원명, 팀명, 나이에 보조 인덱스를 두어 DB 조회 없이 검색한다.
+ * - 하이버네이트 post-commit insert/update/delete 리스너로 커밋된 엔티티 변경만 바로 반영 (롤백된 변경은 오지 않음)
+ * - 벌크 연산(EntityChangedEvent bulk)은 바뀐 행을 알 수 없으므로 뷰를 비우고(cold) 다음 refresh 에서 다시 적재
+ * - cold 이거나 쓰기 트랜잭션 안(아직 커밋하지 않은 변경이 뷰에 없음)이면 null 을 반환해서 DB 에서 조회하게 한다.
+ * 애플리케이션 안의 변경만 알 수 있으므로 인스턴스가 하나이고 DB 를 직접 수정하지 않는 경우에만 사용한다.
+ */
+@Slf4j
+@Component
+public class MemberTeamView implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final boolean enabled;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    // 아래 자료구조는 모두 lock 으로 보호한다. (조회는 읽기 락, 변경 반영과 적재는 쓰기 락)
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Row> rows = new HashMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+    private final Map<String, Set<Long>> usernameIndex = new HashMap<>();
+    private final Map<String, Set<Long>> teamNameIndex = new HashMap<>();
+    private final Map<Long, Set<Long>> teamIndex = new HashMap<>();
+    private final NavigableMap<Integer, Set<Long>> ageIndex = new TreeMap<>();
+    private volatile boolean warm;
+    // cold 상태에서 변경이 생길 때마다 증가, 적재 도중 변경이 있었으면 적재 결과를 버린다.
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public MemberTeamView(@Value("${querydsl.member-view.enabled:false}") boolean enabled,
+                          JPAQueryFactory queryFactory,
+                          PlatformTransactionManager transactionManager,
+                          EntityManagerFactory entityManagerFactory,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.queryFactory = queryFactory;
+        // 복제본 라우팅 시 복제 지연 동안의 데이터로 적재하지 않도록 읽기 전용으로 하지 않는다. (primary 에서 적재)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        if (enabled) {
+            EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            listeners.appendListeners(EventType.POST_COMMIT_INSERT, this);
+            listeners.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+            listeners.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        }
+
+        FunctionCounter.builder("member.view.search", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("메모리 뷰에서 처리한 검색 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("member.view.search", fallbacks, AtomicLong::get)
+                .tag("result", "fallback")
+                .description("뷰가 cold 이거나 쓰기 트랜잭션 안이라서 DB 로 넘긴 검색 수")
+                .register(meterRegistry);
+        Gauge.builder("member.view.size", this, MemberTeamView::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 뷰에서 검색한 결과 (회원 id 순), 뷰를 사용할 수 없으면 null
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (!enabled) {
+            return null;
+        }
+        if (!warm || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            fallbacks.incrementAndGet();
+            return null;
+        }
+        MemberSearchCondition normalized = condition.normalize();
+        lock.readLock().lock();
+        try {
+            if (!warm) {
+                fallbacks.incrementAndGet();
+                return null;
+            }
+            List<MemberTeamDto> result = new ArrayList<>();
+            for (Long memberId : candidates(normalized)) {
+                Row row = rows.get(memberId);
+                if (row.matches(normalized, teamNames)) {
+                    result.add(row.toDto(teamNames));
+                }
+            }
+            result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            hits.incrementAndGet();
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 인덱스 중 후보가 가장 적은 것을 고르고, 나머지 조건은 Row.matches 로 거른다.
+    private Collection<Long> candidates(MemberSearchCondition condition) {
+        Collection<Long> best = null;
+        if (condition.getUsername() != null) {
+            best = usernameIndex.getOrDefault(condition.getUsername(), Set.of());
+        }
+        if (condition.getTeamName() != null) {
+            Set<Long> byTeam = teamNameIndex.getOrDefault(condition.getTeamName(), Set.of());
+            if (best == null || byTeam.size() < best.size()) {
+                best = byTeam;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int from = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int to = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            if (from > to) {
+                return List.of();
+            }
+            List<Long> byAge = new ArrayList<>();
+            ageIndex.subMap(from, true, to, true).values().forEach(byAge::addAll);
+            return byAge;
+        }
+        return rows.keySet();
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * cold 이면 DB 에서 전체를 다시 적재한다. 적재 도중 변경이 있었으면 버리고 다음 주기에 다시 시도한다.
+     *
+     * @return 적재 후 warm 여부
+     */
+    @Scheduled(fixedDelayString = "${querydsl.member-view.refresh-interval:PT1S}")
+    public boolean refresh() {
+        if (!enabled || warm) {
+            return warm;
+        }
+        long start;
+        lock.writeLock().lock();
+        try {
+            start = generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // 적재 쿼리는 락 밖에서 실행한다.
+        Snapshot snapshot = transactionTemplate.execute(status -> new Snapshot(
+                readAll(queryFactory.select(team.id, team.name).from(team)),
+                readAll(queryFactory.select(member.id, member.username, member.age, team.id)
+                        .from(member)
+                        .leftJoin(member.team, team))));
+
+        lock.writeLock().lock();
+        try {
+            if (generation != start) {
+                log.debug("member view load discarded, changed while loading");
+                return false;
+            }
+            clear();
+            for (Tuple tuple : snapshot.teams) {
+                putTeam(tuple.get(team.id), tuple.get(team.name));
+            }
+            for (Tuple tuple : snapshot.members) {
+                putRow(new Row(tuple.get(member.id), tuple.get(member.username), tuple.get(member.age),
+                        tuple.get(team.id)));
+            }
+            warm = true;
+            log.info("member view loaded, members={}, teams={}", rows.size(), teamNames.size());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            warm = false;
+            generation++;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 벌크 연산 실행 시점에 비우고, 커밋 후 한 번 더 비워서 그 사이에 이전 데이터로 적재된 뷰를 버린다.
+    @EventListener
+    public void onChanged(EntityChangedEvent event) {
+        if (enabled && event.isBulk() && event.isAbout(Member.class, Team.class)) {
+            invalidate();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterCompletion(EntityChangedEvent event) {
+        onChanged(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        apply(() -> upsert(event.getEntity()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        apply(() -> upsert(event.getEntity()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        apply(() -> {
+            if (event.getEntity() instanceof Member deleted) {
+                removeRow(deleted.getId());
+            } else if (event.getEntity() instanceof Team deleted) {
+                removeTeam(deleted.getId());
+            }
+        });
+    }
+
+    // 롤백된 변경은 반영하지 않는다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (warm) {
+                change.run();
+            } else {
+                generation++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(Object entity) {
+        if (entity instanceof Team changed) {
+            putTeam(changed.getId(), changed.getName());
+            return;
+        }
+        Member changed = (Member) entity;
+        Team memberTeam = changed.getTeam();
+        Long teamId = memberTeam != null ? memberTeam.getId() : null;
+        if (teamId != null && !teamNames.containsKey(teamId)) {
+            // 뷰에 없는 팀인데 프록시라서 이름을 알 수 없으면 뷰를 다시 적재한다.
+            if (!Hibernate.isInitialized(memberTeam)) {
+                warm = false;
+                generation++;
+                clear();
+                return;
+            }
+            putTeam(teamId, memberTeam.getName());
+        }
+        removeRow(changed.getId());
+        putRow(new Row(changed.getId(), changed.getUsername(), changed.getAge(), teamId));
+    }
+
+    private void putTeam(Long teamId, String name) {
+        String previous = teamNames.put(teamId, name);
+        Set<Long> members = teamIndex.getOrDefault(teamId, Set.of());
+        if (previous != null) {
+            removeAll(teamNameIndex, previous, members);
+        }
+        if (name != null && !members.isEmpty()) {
+            teamNameIndex.computeIfAbsent(name, k -> new HashSet<>()).addAll(members);
+        }
+    }
+
+    private void removeTeam(Long teamId) {
+        String name = teamNames.remove(teamId);
+        Set<Long> members = teamIndex.getOrDefault(teamId, Set.of());
+        if (name != null) {
+            removeAll(teamNameIndex, name, members);
+        }
+    }
+
+    private void putRow(Row row) {
+        rows.put(row.memberId, row);
+        add(usernameIndex, row.username, row.memberId);
+        add(ageIndex, row.age, row.memberId);
+        if (row.teamId != null) {
+            add(teamIndex, row.teamId, row.memberId);
+            add(teamNameIndex, teamNames.get(row.teamId), row.memberId);
+        }
+    }
+
+    private void removeRow(Long memberId) {
+        Row row = rows.remove(memberId);
+        if (row == null) {
+            return;
+        }
+        removeAll(usernameIndex, row.username, Set.of(memberId));
+        removeAll(ageIndex, row.age, Set.of(memberId));
+        if (row.teamId != null) {
+            removeAll(teamIndex, row.teamId, Set.of(memberId));
+            removeAll(teamNameIndex, teamNames.get(row.teamId), Set.of(memberId));
+        }
+    }
+
+    private void clear() {
+        rows.clear();
+        teamNames.clear();
+        usernameIndex.clear();
+        teamNameIndex.clear();
+        teamIndex.clear();
+        ageIndex.clear();
+    }
+
+    // 전체 적재는 의도한 것이므로 QueryGuard 의 max-rows 가 적용되지 않는 stream 으로 읽는다.
+    private static <T> List<T> readAll(JPAQuery<T> query) {
+        try (Stream<T> rows = query.stream()) {
+            return rows.toList();
+        }
+    }
+
+    private static <K> void add(Map<K, Set<Long>> index, K key, Long memberId) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new HashSet<>()).add(memberId);
+        }
+    }
+
+    private static <K> void removeAll(Map<K, Set<Long>> index, K key, Collection<Long> memberIds) {
+        if (key == null) {
+            return;
+        }
+        Set<Long> ids = index.get(key);
+        if (ids != null) {
+            ids.removeAll(memberIds);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private record Snapshot(List<Tuple> teams, List<Tuple> members) {
+    }
+
+    // 팀 이름은 teamNames 에서 찾으므로 팀 이름이 바뀌어도 행을 고칠 필요가 없다.
+    private record Row(Long memberId, String username, int age, Long teamId) {
+
+        boolean matches(MemberSearchCondition condition, Map<Long, String> teamNames) {
+            return (condition.getUsername() == null || condition.getUsername().equals(username))
+                    && (condition.getTeamName() == null
+                    || (teamId != null && condition.getTeamName().equals(teamNames.get(teamId))))
+                    && (condition.getAgeGoe() == null || age >= condition.getAgeGoe())
+                    && (condition.getAgeLoe() == null || age <= condition.getAgeLoe());
+        }
+
+        MemberTeamDto toDto(Map<Long, String> teamNames) {
+            return new MemberTeamDto(memberId, username, age, teamId, teamId != null ? teamNames.get(teamId) : null);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.QMember;
+import com.study.querydsl.repository.support.CountQueries;
 import com.study.querydsl.repository.support.Querydsl4RepositorySupport;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +13,8 @@ import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static com.study.querydsl.entity.QMember.member;
 import static com.study.querydsl.entity.QTeam.team;
@@ -43,10 +47,11 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 );
+        // applyPagination 이 query 에 order by, limit 을 추가하기 전에 count 쿼리를 만든다.
+        JPAQuery<Long> countQuery = CountQueries.from(getEntityManager(), getQueryFactory(), query);
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
-        // query.fetch().size() 를 이용해서 fetchCount 대체
 
-        return PageableExecutionUtils.getPage(content, pageable, () -> query.fetch().size());
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
@@ -83,6 +88,40 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    // 배치 처리용, selectFrom(member).fetch() 처럼 전체를 영속성 컨텍스트에 올리지 않고 id 순 청크 단위로 처리한다.
+    public long forEachMemberChunk(MemberSearchCondition condition, int chunkSize, boolean commitPerChunk,
+                                   Consumer<List<Member>> action) {
+        return forEachChunk(query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ), chunkSize, commitPerChunk, action);
+    }
+
+    public Stream<List<Member>> streamMemberChunks(MemberSearchCondition condition, int chunkSize) {
+        return streamChunks(query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ), chunkSize);
+    }
+
+    // 별칭을 지정한 쿼리도 청크 단위로 처리할 수 있다.
+    public long forEachTeamMemberChunk(String teamName, int chunkSize, Consumer<List<Member>> action) {
+        QMember m = new QMember("m");
+        return forEachChunk(query -> query
+                .selectFrom(m)
+                .join(m.team, team)
+                .where(team.name.eq(teamName)), chunkSize, action);
+    }
 
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
@@ -0,0 +1,17 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.entity.Team;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Optional;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // 쿼리 캐시에는 id 만 저장되고 엔티티는 2차 캐시(team 영역)에서 가져온다.
+    // team 테이블이 변경(벌크 연산 포함)되면 하이버네이트가 캐시된 결과를 무효화한다.
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<Team> findByName(String name);
+}
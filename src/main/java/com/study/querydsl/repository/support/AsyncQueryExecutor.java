@@ -0,0 +1,79 @@
+package com.study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 조회를 asyncQueryTaskExecutor 스레드에서 자신의 읽기 전용 트랜잭션(= 별도 EntityManager, 커넥션)으로 실행한다.
+ * 동시에 실행 중인 조회 수를 semaphore(bulkhead)로 커넥션 풀보다 작게 제한하고,
+ * maxWait 안에 자리가 나지 않으면 기다리지 않고 TaskRejectedException 으로 실패한 future 를 반환한다.
+ */
+@Component
+public class AsyncQueryExecutor {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final Counter rejected;
+
+    public AsyncQueryExecutor(@Qualifier("asyncQueryTaskExecutor") ThreadPoolTaskExecutor executor,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${querydsl.async-query.max-concurrent:4}") int maxConcurrent,
+                              @Value("${querydsl.async-query.max-wait:0ms}") Duration maxWait) {
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.maxWait = maxWait;
+        this.rejected = Counter.builder("async.query.rejected").register(meterRegistry);
+        Gauge.builder("async.query.bulkhead.available", bulkhead, Semaphore::availablePermits).register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        if (!acquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new TaskRejectedException("동시에 실행 중인 비동기 조회가 너무 많습니다."));
+        }
+        // 호출한 쪽이 future 를 취소해도 조회는 커넥션을 계속 사용하므로 실제로 끝났을 때 자리를 반납한다.
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readOnlyTransaction.execute(status -> query.get());
+                } finally {
+                    bulkhead.release();
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+    }
+
+    private boolean acquire() {
+        if (maxWait.isZero()) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
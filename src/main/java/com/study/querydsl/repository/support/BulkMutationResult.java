@@ -0,0 +1,51 @@
+package com.study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 청크 단위 벌크 연산 결과
+ */
+@Getter
+@ToString(exclude = "chunks")
+public class BulkMutationResult {
+
+    private final long affectedRows;
+    private final Duration elapsed;
+    private final List<Chunk> chunks;
+
+    public BulkMutationResult(List<Chunk> chunks, Duration elapsed) {
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.elapsed = elapsed;
+        this.affectedRows = chunks.stream().mapToLong(Chunk::getAffectedRows).sum();
+    }
+
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * 청크 하나의 처리 결과 (id 범위 : fromId 이상 toId 미만)
+     */
+    @Getter
+    @ToString
+    public static class Chunk {
+        private final int index;
+        private final long fromId;
+        private final long toId;
+        private final long affectedRows;
+        private final Duration elapsed;
+
+        public Chunk(int index, long fromId, long toId, long affectedRows, Duration elapsed) {
+            this.index = index;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.affectedRows = affectedRows;
+            this.elapsed = elapsed;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 테이블 전체에 걸친 벌크 update/delete 를 id 범위 청크로 나누어 실행한다.
+ * - 청크마다 새 트랜잭션(REQUIRES_NEW)으로 커밋하므로 락 유지 시간과 undo 로그가 청크 크기로 제한된다.
+ * - 청크 경계는 조건을 만족하는 다음 id 를 찾아서(seek) 정하므로 id 가 듬성듬성해도 빈 청크를 실행하지 않는다.
+ * - 청크 사이에 throttle 만큼 쉬어서 다른 트랜잭션이 끼어들 수 있게 한다.
+ * - id 는 증가하는 방향으로만 진행하고 상한은 시작 시점에 정하므로 set 절로 인해 다시 where 조건을 만족하게 된 row 를 중복 처리하지 않는다.
+ * - 실행 후 호출한 쪽 영속성 컨텍스트의 대상 엔티티를 (flush 없이) detach 하므로 em.clear() 를 직접 할 필요가 없다.
+ * 청크가 실패하면 이전 청크까지는 이미 커밋된 상태로 예외가 전파된다.
+ * 호출한 쪽 트랜잭션에서 커밋하지 않은 변경은 청크 트랜잭션에서 보이지 않고, 같은 row 를 수정했다면 청크가 그 락을 기다린다.
+ * 그래서 호출한 쪽 영속성 컨텍스트에 flush 하지 않은 변경이 있으면 실행하지 않고 IllegalStateException 을 던진다.
+ * (이미 flush 한 변경은 알 수 없으므로 벌크 연산은 커밋 후에 호출한다.)
+ */
+@Slf4j
+@Component
+public class ChunkedBulkExecutor {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final Duration throttle;
+
+    public ChunkedBulkExecutor(EntityManager em,
+                               JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${querydsl.bulk-mutation.chunk-size:1000}") int chunkSize,
+                               @Value("${querydsl.bulk-mutation.throttle:0ms}") Duration throttle) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+    }
+
+    /**
+     * ex) update(member, member.id, member.age.lt(28), clause -> clause.set(member.username, "비회원"))
+     */
+    public BulkMutationResult update(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                     Consumer<JPAUpdateClause> setter) {
+        return execute(entity, id, where, "update", range -> {
+            JPAUpdateClause clause = queryFactory.update(entity);
+            setter.accept(clause);
+            return clause.where(where, range).execute();
+        });
+    }
+
+    public BulkMutationResult delete(EntityPath<?> entity, NumberPath<Long> id, Predicate where) {
+        return execute(entity, id, where, "delete", range -> queryFactory.delete(entity).where(where, range).execute());
+    }
+
+    private BulkMutationResult execute(EntityPath<?> entity, NumberPath<Long> id, Predicate where, String operation,
+                                       Function<Predicate, Long> chunkStatement) {
+        checkNoPendingChanges();
+        long start = System.nanoTime();
+        // 복제본 라우팅 시 복제 지연으로 최근에 추가된 row 를 놓치지 않도록 범위도 읽기 전용이 아닌 트랜잭션(primary)에서 읽는다.
+        Tuple bounds = chunkTransaction.execute(status -> queryFactory
+                .select(id.min(), id.max())
+                .from(entity)
+                .where(where)
+                .fetchOne());
+
+        List<BulkMutationResult.Chunk> chunks = new ArrayList<>();
+        Long minId = bounds != null ? bounds.get(id.min()) : null;
+        Long maxId = bounds != null ? bounds.get(id.max()) : null;
+        if (minId != null && maxId != null) {
+            Timer timer = Timer.builder("bulk.mutation.chunk")
+                    .tag("entity", entity.getType().getSimpleName())
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            long from = minId;
+            while (from <= maxId) {
+                if (!chunks.isEmpty()) {
+                    pause();
+                }
+                long chunkFrom = from;
+                long chunkStart = System.nanoTime();
+                ChunkRange range = chunkTransaction.execute(status -> {
+                    // 조건을 만족하는 chunkSize 번째 id 까지가 이번 청크, 없으면 남은 전부
+                    Long last = queryFactory
+                            .select(id)
+                            .from(entity)
+                            .where(where, id.between(chunkFrom, maxId))
+                            .orderBy(id.asc())
+                            .offset(chunkSize - 1)
+                            .fetchFirst();
+                    long to = last != null ? last + 1 : maxId + 1;
+                    Long affected = chunkStatement.apply(id.goe(chunkFrom).and(id.lt(to)));
+                    return new ChunkRange(to, affected != null ? affected : 0L);
+                });
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - chunkStart);
+                timer.record(elapsed);
+
+                BulkMutationResult.Chunk chunk = new BulkMutationResult.Chunk(
+                        chunks.size(), chunkFrom, range.to(), range.affected(), elapsed);
+                chunks.add(chunk);
+                log.debug("bulk {} {} chunk done. {}", operation, entity.getType().getSimpleName(), chunk);
+                // 다음 청크의 경계도 조건을 만족하는 id 로 찾으므로 사이의 빈 id 구간은 건너뛴다.
+                from = range.to();
+            }
+        }
+
+        detachTargets(entity.getType());
+        return new BulkMutationResult(chunks, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // flush 하지 않은 변경이 있으면 청크 커밋 후 flush 될 때 벌크 결과를 덮어쓰고, 미리 flush 하면 청크가 그 락을 기다린다.
+    private void checkNoPendingChanges() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && em.unwrap(SessionImplementor.class).isDirty()) {
+            throw new IllegalStateException("영속성 컨텍스트에 flush 하지 않은 변경이 있습니다. 커밋 후 벌크 연산을 실행하세요.");
+        }
+    }
+
+    private void pause() {
+        if (throttle.isZero() || throttle.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(throttle.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("벌크 연산 대기 중 인터럽트 되었습니다.");
+        }
+    }
+
+    // 호출한 쪽 트랜잭션의 영속성 컨텍스트에 남아있는 대상 엔티티는 DB 와 값이 다를 수 있으므로 detach 한다.
+    // 시작 전에 변경이 없음을 확인했으므로 flush 하지 않는다. (flush 하면 청크가 커밋한 값을 덮어쓴다.)
+    private void detachTargets(Class<?> entityType) {
+        em.getEntityManagerFactory().getCache().evict(entityType);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entityType.isInstance(entry.getKey())) {
+                em.detach(entry.getKey());
+            }
+        }
+    }
+
+    private record ChunkRange(long to, long affected) {
+    }
+}
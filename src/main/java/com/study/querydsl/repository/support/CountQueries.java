@@ -0,0 +1,339 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * 컨텐츠 쿼리의 QueryMetadata 로부터 count 쿼리를 만든다.
+ * fetchCount() 가 deprecated 되면서 사용하던 fetch().size() 는 결과 전체를 엔티티로 로딩하기 때문에
+ * select 절, order by, offset/limit, fetch join 을 제거한 select count(...) 로 대체한다.
+ * 또한 where 절 등에서 참조하지 않는 to-one left join 은 결과 row 수에 영향을 주지 않으므로 제거한다.
+ * 만든 count 쿼리도 QueryGuard 검사를 거치도록 queryFactory.query() (ExtendedJPAQueryFactory) 로 만든다.
+ */
+public final class CountQueries {
+
+    private CountQueries() {
+    }
+
+    /**
+     * 컨텐츠 쿼리의 전체 건수를 구하는 함수, 호출 시점의 QueryMetadata 로 만들어 두므로 페이징(order by, limit)을 적용하기 전에 호출한다.
+     * group by 쿼리는 그룹 수를 센다. (JPQL 로 그룹 수를 한 번에 셀 수 없으므로 그룹마다 첫 번째 group by 값만 stream 으로 읽어서 센다.)
+     */
+    public static LongSupplier count(EntityManager em, JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        if (contentQuery.getMetadata().getGroupBy().isEmpty()) {
+            JPAQuery<Long> countQuery = from(em, queryFactory, contentQuery);
+            return () -> {
+                Long count = countQuery.fetchOne();
+                return count != null ? count : 0L;
+            };
+        }
+        JPAQuery<Object> groupQuery = groups(queryFactory, contentQuery.getMetadata());
+        return () -> {
+            try (Stream<Object> groups = groupQuery.stream()) {
+                return groups.count();
+            }
+        };
+    }
+
+    /**
+     * select count(root) 쿼리를 만든다. group by 가 있는 쿼리는 그룹 수를 세야 하므로 count(...) 를 사용한다.
+     */
+    public static JPAQuery<Long> from(EntityManager em, JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        if (!source.getGroupBy().isEmpty()) {
+            throw new IllegalArgumentException("group by 쿼리는 count 쿼리로 변환할 수 없습니다.");
+        }
+
+        JPAQuery<Long> countQuery = newQuery(queryFactory);
+        QueryMetadata metadata = countQuery.getMetadata();
+        Expression<Long> projection = countExpression(source);
+        List<JoinExpression> joins = usedJoins(em, withoutFetchFlags(source.getJoins()), projection, source.getWhere());
+        addJoins(metadata, joins);
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        copyParams(source, metadata);
+        metadata.setProjection(projection);
+        return countQuery;
+    }
+
+    /**
+     * 직접 작성한 count 쿼리에서 사용하지 않는 to-one left join 을 제거한다.
+     * ex) teamName 조건이 없으면 leftJoin(member.team, team) 은 count 결과에 영향이 없다.
+     */
+    public static <T> JPAQuery<T> withoutUnusedJoins(EntityManager em, JPAQueryFactory queryFactory, JPAQuery<T> countQuery) {
+        QueryMetadata source = countQuery.getMetadata();
+        if (!source.getGroupBy().isEmpty() || source.getHaving() != null) {
+            return countQuery;
+        }
+        List<JoinExpression> joins = usedJoins(em, source.getJoins(), source.getProjection(), source.getWhere());
+        if (joins.size() == source.getJoins().size()) {
+            return countQuery;
+        }
+
+        JPAQuery<T> optimized = newQuery(queryFactory);
+        QueryMetadata metadata = optimized.getMetadata();
+        addJoins(metadata, joins);
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        copyParams(source, metadata);
+        metadata.setDistinct(source.isDistinct());
+        metadata.setProjection(source.getProjection());
+        return optimized;
+    }
+
+    // select 첫 번째 group by 값 ... group by ... having ... (order by, limit 제외)
+    private static JPAQuery<Object> groups(JPAQueryFactory queryFactory, QueryMetadata source) {
+        JPAQuery<Object> groupQuery = newQuery(queryFactory);
+        QueryMetadata metadata = groupQuery.getMetadata();
+        addJoins(metadata, withoutFetchFlags(source.getJoins()));
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        source.getGroupBy().forEach(metadata::addGroupBy);
+        if (source.getHaving() != null) {
+            metadata.addHaving(source.getHaving());
+        }
+        copyParams(source, metadata);
+        metadata.setProjection(source.getGroupBy().get(0));
+        return groupQuery;
+    }
+
+    // select 절은 QueryMetadata 에 직접 넣으므로 타입만 맞춘다.
+    @SuppressWarnings("unchecked")
+    private static <T> JPAQuery<T> newQuery(JPAQueryFactory queryFactory) {
+        JPAQuery<T> query = (JPAQuery<T>) queryFactory.query();
+        query.getMetadata().setValidate(false);
+        return query;
+    }
+
+    // fetch join 은 select 절에 엔티티가 없으면 사용할 수 없으므로 일반 join 으로 바꾼다.
+    private static List<JoinExpression> withoutFetchFlags(List<JoinExpression> joins) {
+        List<JoinExpression> result = new ArrayList<>(joins.size());
+        for (JoinExpression join : joins) {
+            Set<JoinFlag> flags = new HashSet<>(join.getFlags());
+            flags.remove(JPAQueryMixin.FETCH);
+            flags.remove(JPAQueryMixin.FETCH_ALL_PROPERTIES);
+            result.add(new JoinExpression(join.getType(), join.getTarget(), join.getCondition(), flags));
+        }
+        return result;
+    }
+
+    private static void addJoins(QueryMetadata metadata, List<JoinExpression> joins) {
+        for (JoinExpression join : joins) {
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                metadata.addJoinFlag(flag);
+            }
+        }
+    }
+
+    // 제거해도 되는 join 이 없어질 때까지 뒤에서부터 반복한다. (뒤쪽 join 이 앞쪽 alias 를 참조할 수 있음)
+    private static List<JoinExpression> usedJoins(EntityManager em, List<JoinExpression> joins,
+                                                  Expression<?> projection, Expression<?> where) {
+        List<JoinExpression> result = new ArrayList<>(joins);
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            for (int i = result.size() - 1; i > 0; i--) {
+                JoinExpression join = result.get(i);
+                if (!isRemovable(em, join)) {
+                    continue;
+                }
+                Path<?> alias = (Path<?>) ((Operation<?>) join.getTarget()).getArg(1);
+                if (!referencedRoots(result, join, projection, where).contains(alias.getRoot())) {
+                    result.remove(i);
+                    removed = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    // 연관관계 경로로 건 to-one left join 만 제거 대상이다. (컬렉션 join 은 row 수가 늘어날 수 있음)
+    private static boolean isRemovable(EntityManager em, JoinExpression join) {
+        if (join.getType() != JoinType.LEFTJOIN || !join.getFlags().isEmpty()) {
+            return false;
+        }
+        if (!(join.getTarget() instanceof Operation)
+                || ((Operation<?>) join.getTarget()).getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Expression<?> association = ((Operation<?>) join.getTarget()).getArg(0);
+        if (!(association instanceof Path)) {
+            return false;
+        }
+        PathMetadata pathMetadata = ((Path<?>) association).getMetadata();
+        Path<?> parent = pathMetadata.getParent();
+        if (parent == null) {
+            return false;
+        }
+        try {
+            ManagedType<?> managedType = em.getMetamodel().managedType(parent.getType());
+            Attribute<?, ?> attribute = managedType.getAttribute(pathMetadata.getName());
+            return attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE
+                    || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.ONE_TO_ONE;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Set<Path<?>> referencedRoots(List<JoinExpression> joins, JoinExpression excluded,
+                                                Expression<?> projection, Expression<?> where) {
+        Set<Path<?>> roots = new HashSet<>();
+        RootCollector.collect(projection, roots);
+        RootCollector.collect(where, roots);
+        for (JoinExpression join : joins) {
+            if (join == excluded) {
+                continue;
+            }
+            RootCollector.collect(join.getTarget(), roots);
+            RootCollector.collect(join.getCondition(), roots);
+        }
+        return roots;
+    }
+
+    /**
+     * 이미 count 를 select 하는 쿼리는 그대로, 아니면 count 쿼리로 변환해서 실행한다.
+     */
+    public static long fetchCount(EntityManager em, JPAQueryFactory queryFactory, JPAQuery<?> query) {
+        if (isCountProjection(query.getMetadata().getProjection())) {
+            Object count = query.fetchOne();
+            return count != null ? ((Number) count).longValue() : 0L;
+        }
+        return count(em, queryFactory, query).getAsLong();
+    }
+
+    private static Expression<Long> countExpression(QueryMetadata source) {
+        List<JoinExpression> joins = source.getJoins();
+        if (joins.isEmpty()) {
+            throw new IllegalArgumentException("from 절이 없는 쿼리입니다.");
+        }
+        Expression<?> root = joins.get(0).getTarget();
+        if (source.isDistinct()) {
+            // distinct 단일 컬럼이면 그 컬럼 기준, 그 외에는 root 엔티티 기준으로 센다.
+            Expression<?> projection = source.getProjection();
+            Expression<?> target = projection instanceof Path ? projection : root;
+            return ExpressionUtils.operation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, target);
+        }
+        return ExpressionUtils.count(root);
+    }
+
+    private static boolean isCountProjection(Expression<?> projection) {
+        if (!(projection instanceof Operation)) {
+            return false;
+        }
+        Operation<?> operation = (Operation<?>) projection;
+        return operation.getOperator() == Ops.AggOps.COUNT_AGG
+                || operation.getOperator() == Ops.AggOps.COUNT_DISTINCT_AGG
+                || operation.getOperator() == Ops.AggOps.COUNT_ALL_AGG;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void copyParams(QueryMetadata source, QueryMetadata target) {
+        for (Map.Entry<ParamExpression<?>, Object> entry : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 표현식에서 참조하는 경로의 root(alias) 를 모은다.
+     */
+    private static class RootCollector implements Visitor<Void, Set<Path<?>>> {
+
+        private static final RootCollector INSTANCE = new RootCollector();
+
+        static void collect(Expression<?> expression, Set<Path<?>> roots) {
+            if (expression != null) {
+                expression.accept(INSTANCE, roots);
+            }
+        }
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                collect(arg, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            for (Expression<?> arg : expr.getArgs()) {
+                collect(arg, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            collect(metadata.getProjection(), roots);
+            collect(metadata.getWhere(), roots);
+            collect(metadata.getHaving(), roots);
+            for (JoinExpression join : metadata.getJoins()) {
+                collect(join.getTarget(), roots);
+                collect(join.getCondition(), roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collect((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import com.study.querydsl.monitoring.QueryGuard;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * 조회 쿼리는 실행 전에 QueryGuard 로 검사하는 GuardedJPAQuery 로 만든다. (select, selectFrom, from 모두 query() 를 사용)
+ * 벌크 연산(update, delete)은 영속성 컨텍스트와 엔티티 리스너를 거치지 않으므로
+ * 실행 후 직접 EntityChangedEvent 를 발행해서 캐시 등이 변경을 알 수 있게 한다.
+ */
+public class ExtendedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final ApplicationEventPublisher publisher;
+    private final QueryGuard guard;
+
+    public ExtendedJPAQueryFactory(EntityManager em, ApplicationEventPublisher publisher, QueryGuard guard) {
+        super(em);
+        this.em = em;
+        this.publisher = publisher;
+        this.guard = guard;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new GuardedJPAQuery<Void>(em, guard);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(em, path) {
+            @Override
+            public long execute() {
+                long count = super.execute();
+                publisher.publishEvent(new EntityChangedEvent(path.getType(), true));
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path) {
+            @Override
+            public long execute() {
+                long count = super.execute();
+                publisher.publishEvent(new EntityChangedEvent(path.getType(), true));
+                return count;
+            }
+        };
+    }
+}
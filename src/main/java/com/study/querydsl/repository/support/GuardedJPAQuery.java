@@ -0,0 +1,93 @@
+package com.study.querydsl.repository.support;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.monitoring.QueryGuard;
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 실행 직전에 QueryGuard 로 QueryMetadata 를 검사하는 JPAQuery (ExtendedJPAQueryFactory.query())
+ * fetch() 는 limit 이 없거나 maxRows 보다 크면 maxRows + 1 건까지만 조회하고, 넘으면 실패시킨다.
+ * 컬렉션 fetch join 쿼리에 limit 을 주면 하이버네이트가 전체를 읽어서 메모리에서 페이징하므로(FETCH_JOIN_PAGINATION)
+ * limit 대신 stream 으로 읽으면서 루트 엔티티가 maxRows + 1 개가 되면 멈춘다.
+ */
+public class GuardedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryGuard guard;
+
+    public GuardedJPAQuery(EntityManager em, QueryGuard guard) {
+        super(em);
+        this.guard = guard;
+    }
+
+    @Override
+    public List<T> fetch() {
+        guard.check(getMetadata(), true, this::toString);
+        int maxRows = guard.getMaxRows();
+        QueryModifiers modifiers = getMetadata().getModifiers();
+        if (maxRows <= 0 || (modifiers.getLimit() != null && modifiers.getLimit() <= maxRows)) {
+            return super.fetch();
+        }
+        if (QueryGuard.hasCollectionFetchJoin(getMetadata())) {
+            return fetchDistinct(maxRows);
+        }
+        getMetadata().setLimit(maxRows + 1L);
+        List<T> result;
+        try {
+            result = super.fetch();
+        } finally {
+            getMetadata().setModifiers(modifiers);
+        }
+        if (result.size() > maxRows) {
+            throw guard.maxRowsExceeded(this::toString);
+        }
+        return result;
+    }
+
+    // fetch join 한 컬렉션 행마다 같은 루트 인스턴스가 반복되므로 인스턴스 기준으로 중복을 제거한다. (fetch() 와 같은 결과)
+    private List<T> fetchDistinct(int maxRows) {
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<T> result = new ArrayList<>();
+        try (Stream<T> stream = super.stream()) {
+            Iterator<T> rows = stream.iterator();
+            while (rows.hasNext()) {
+                T row = rows.next();
+                if (seen.add(row)) {
+                    result.add(row);
+                    if (result.size() > maxRows) {
+                        throw guard.maxRowsExceeded(this::toString);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public T fetchOne() {
+        guard.check(getMetadata(), false, this::toString);
+        return super.fetchOne();
+    }
+
+    // stream, iterate 는 결과를 메모리에 모으지 않으므로 건수를 제한하지 않는다.
+    @Override
+    public Stream<T> stream() {
+        guard.check(getMetadata(), false, this::toString);
+        return super.stream();
+    }
+
+    @Override
+    public CloseableIterator<T> iterate() {
+        guard.check(getMetadata(), false, this::toString);
+        return super.iterate();
+    }
+}
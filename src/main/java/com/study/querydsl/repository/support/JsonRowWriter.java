@@ -0,0 +1,65 @@
+package com.study.querydsl.repository.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 프로젝션(QMemberTeamDto 등)의 컬럼 목록으로 조회한 Object[] row 를 DTO 로 만들지 않고 JsonGenerator 에 바로 쓴다.
+ * 필드 이름은 컬럼의 별칭(as) 또는 경로 이름이며, 미리 인코딩해 두고 재사용한다.
+ */
+public class JsonRowWriter {
+
+    private final SerializableString[] names;
+
+    public JsonRowWriter(FactoryExpression<?> projection) {
+        List<Expression<?>> columns = projection.getArgs();
+        this.names = new SerializableString[columns.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = new SerializedString(name(columns.get(i)));
+        }
+    }
+
+    public void write(JsonGenerator generator, Object[] row) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < names.length; i++) {
+            generator.writeFieldName(names[i]);
+            writeValue(generator, row[i]);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeObject(value);
+        }
+    }
+
+    private static String name(Expression<?> column) {
+        if (column instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+            return name(operation.getArg(1));
+        }
+        if (column instanceof Path<?> path) {
+            return path.getMetadata().getName();
+        }
+        throw new IllegalArgumentException("필드 이름을 알 수 없는 컬럼입니다. 별칭(as)을 지정하세요. column=" + column);
+    }
+}
@@ -0,0 +1,109 @@
+package com.study.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 페이지 조회 시 content 쿼리와 count 쿼리를 동시에 실행한다.
+ * count 쿼리는 queryTaskExecutor 스레드에서 자신의 읽기 전용 트랜잭션(= 별도 EntityManager, 커넥션)으로 실행되므로
+ * 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 변경은 count 에 보이지 않는다.
+ * 호출한 스레드는 커넥션을 잡은 채로 count 를 기다리므로, count 스레드가 모두 이런 요청에 잡혀 있으면
+ * 큐에 쌓인 count 가 시작하지 못해 서로 기다리게 된다. 그래서 count-timeout 안에 count 가 시작하지 않았으면
+ * (실행기 큐가 가득 찬 경우 포함) 그 count 는 실행하지 않고 호출한 스레드에서 count 쿼리를 실행한다.
+ * 이미 시작한 count 는 커넥션을 얻은 것이므로 끝날 때까지 기다린다. (같은 count 를 두 번 실행하지 않음)
+ * 실행 중인 JDBC 호출을 인터럽트하지 않도록 필요 없어진 count 는 cancel(false) 로 취소한다. (대기 중이면 실행하지 않음)
+ */
+@Slf4j
+@Component
+public class ParallelCountExecutor {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration countTimeout;
+
+    public ParallelCountExecutor(@Qualifier("queryTaskExecutor") ThreadPoolTaskExecutor executor,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${querydsl.query-executor.count-timeout:500ms}") Duration countTimeout) {
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.countTimeout = countTimeout;
+    }
+
+    public <T> Page<T> getPage(Supplier<List<T>> contentQuery, Pageable pageable, LongSupplier countQuery) {
+        // count 스레드와 호출한 스레드 중 먼저 가져간 쪽만 count 쿼리를 실행한다.
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<Long> count;
+        try {
+            count = executor.submit(() -> claimed.compareAndSet(false, true)
+                    ? readOnlyTransaction.execute(status -> countQuery.getAsLong())
+                    : null);
+        } catch (TaskRejectedException e) {
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery);
+        }
+
+        List<T> content;
+        try {
+            content = contentQuery.get();
+        } catch (RuntimeException | Error e) {
+            // content 조회가 실패하면 count 결과도 필요 없으므로 취소한다.
+            count.cancel(false);
+            throw e;
+        }
+
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> join(count, claimed, countQuery));
+        // 첫 페이지에서 content 가 페이지 크기보다 적은 경우처럼 count 가 필요 없었다면 취소한다.
+        count.cancel(false);
+        return page;
+    }
+
+    private long join(Future<Long> count, AtomicBoolean claimed, LongSupplier countQuery) {
+        try {
+            try {
+                return count.get(countTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (claimed.compareAndSet(false, true)) {
+                    // 아직 시작하지 않은 count 는 실행하지 않고 호출한 스레드에서 count 한다.
+                    count.cancel(false);
+                    log.debug("parallel count not started in {}, counting on caller thread", countTimeout);
+                    return countQuery.getAsLong();
+                }
+                // 실행 중인 count 는 다시 실행하지 않고 결과를 기다린다.
+                return count.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            count.cancel(false);
+            throw new CancellationException("count 쿼리 대기 중 인터럽트 되었습니다.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
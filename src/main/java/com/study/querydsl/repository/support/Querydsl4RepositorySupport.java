@@ -1,7 +1,9 @@
 package com.study.querydsl.repository.support;
 
+import com.querydsl.core.JoinExpression;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.ComparablePath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -16,10 +18,20 @@ import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리 *
@@ -33,6 +45,8 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private JpaEntityInformation entityInformation;
+    private PlatformTransactionManager transactionManager;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -47,10 +61,23 @@ public abstract class Querydsl4RepositorySupport {
         SimpleEntityPathResolver resolver = SimpleEntityPathResolver.INSTANCE;
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
-        this.querydsl = new Querydsl(entityManager, new
-                PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        PathBuilder<?> builder = new PathBuilder<>(path.getType(), path.getMetadata());
+        this.querydsl = new Querydsl(entityManager, builder);
+        this.entityInformation = entityInformation;
+    }
 
+    // 벌크 연산 시 변경 이벤트를 발행하는 공용 JPAQueryFactory 빈을 사용한다. (QuerydslConfig)
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        this.queryFactory = queryFactory;
+    }
+
+    // forEachChunk 의 청크별 트랜잭션용
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        Assert.notNull(transactionManager, "TransactionManager must not be null!");
+        this.transactionManager = transactionManager;
     }
 
     @PostConstruct
@@ -58,6 +85,7 @@ public abstract class Querydsl4RepositorySupport {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(transactionManager, "TransactionManager must not be null!");
     }
 
     protected JPAQueryFactory getQueryFactory() {
@@ -94,12 +122,14 @@ public abstract class Querydsl4RepositorySupport {
      */
 
     // 수정 후 코드
+    // fetch().size() 는 전체 결과를 로딩하므로 QueryMetadata 로 만든 count 쿼리를 사용한다.
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        // group by 쿼리는 그룹 수를 센다.
+        LongSupplier count = CountQueries.count(getEntityManager(), getQueryFactory(), jpaQuery);
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable,
-                () -> jpaQuery.fetch().size());
+        return PageableExecutionUtils.getPage(content, pageable, count);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable,
@@ -108,8 +138,126 @@ public abstract class Querydsl4RepositorySupport {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable, () -> countResult.fetch().size());
+        return PageableExecutionUtils.getPage(content, pageable, () -> fetchCount(countResult));
+    }
+
+    // count 를 select 하는 쿼리는 그대로 실행하고, 그 외 쿼리는 select count(...) 로 변환해서 실행한다.
+    protected long fetchCount(JPAQuery<?> query) {
+        return CountQueries.fetchCount(getEntityManager(), getQueryFactory(), query);
+    }
+
+    /**
+     * 도메인 엔티티 조회 결과를 id 순으로 chunkSize 건씩 나누어 처리한다. (전체 회원 배치 처리 등)
+     * offset 대신 id seek(where id > 이전 청크의 마지막 id order by id limit chunkSize)으로 읽으므로 뒤쪽 청크도 느려지지 않고,
+     * 청크를 처리할 때마다 영속성 컨텍스트를 비우므로 건수와 상관없이 힙에는 한 청크만 남는다.
+     * - commitPerChunk=false : 호출한 쪽 트랜잭션에서 실행하고 청크마다 flush 후 clear (트랜잭션이 없으면 청크마다 새 트랜잭션)
+     * - commitPerChunk=true : 청크마다 새 트랜잭션(REQUIRES_NEW)에서 조회, 처리 후 커밋
+     *   (실패하면 이전 청크까지는 커밋된 상태로 예외가 전파되고, 호출한 쪽에서 커밋하지 않은 변경은 보이지 않는다.)
+     * query 에는 정렬, limit 을 넣지 않는다. (id 정렬과 청크 크기로 덮어씀)
+     * id 조건과 정렬은 query 의 from 절 첫 엔티티(별칭 포함)에 붙이므로 도메인 엔티티를 먼저 from 한다.
+     * 반복 실행하는 청크 조회 쿼리는 N+1 감지 대상이 아니다. (NPlusOneDetector 는 하이버네이트 로더가 실행한 SQL 만 센다.)
+     *
+     * @return 처리한 건수
+     */
+    protected <T> long forEachChunk(Function<JPAQueryFactory, JPAQuery<T>> query, int chunkSize,
+                                    boolean commitPerChunk, Consumer<List<T>> consumer) {
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        if (commitPerChunk) {
+            chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+        long count = 0;
+        Object lastId = null;
+        while (true) {
+            Object after = lastId;
+            List<T> chunk = chunkTransaction.execute(status -> {
+                List<T> rows = fetchChunk(query, after, chunkSize);
+                if (!rows.isEmpty()) {
+                    consumer.accept(rows);
+                }
+                flushAndClear();
+                return rows;
+            });
+            if (chunk == null || chunk.isEmpty()) {
+                return count;
+            }
+            count += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return count;
+            }
+            lastId = idOf(chunk.get(chunk.size() - 1));
+        }
     }
-}
 
+    protected <T> long forEachChunk(Function<JPAQueryFactory, JPAQuery<T>> query, int chunkSize,
+                                    Consumer<List<T>> consumer) {
+        return forEachChunk(query, chunkSize, false, consumer);
+    }
+
+    /**
+     * forEachChunk 의 Stream 버전, 호출한 쪽 트랜잭션 안에서 사용한다.
+     * 다음 청크를 읽기 전에 영속성 컨텍스트를 flush 후 clear 하므로 이전 청크의 엔티티는 준영속 상태가 된다.
+     */
+    protected <T> Stream<List<T>> streamChunks(Function<JPAQueryFactory, JPAQuery<T>> query, int chunkSize) {
+        Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(),
+                "streamChunks 는 트랜잭션 안에서 사용해야 합니다.");
+        Spliterator<List<T>> chunks = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Object lastId;
+            private boolean done;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super List<T>> action) {
+                if (done) {
+                    return false;
+                }
+                if (lastId != null) {
+                    flushAndClear();
+                }
+                List<T> chunk = fetchChunk(query, lastId, chunkSize);
+                done = chunk.size() < chunkSize;
+                if (chunk.isEmpty()) {
+                    return false;
+                }
+                lastId = idOf(chunk.get(chunk.size() - 1));
+                action.accept(chunk);
+                return true;
+            }
+        };
+        return StreamSupport.stream(chunks, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> fetchChunk(Function<JPAQueryFactory, JPAQuery<T>> query, Object lastId, int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "chunkSize 는 1 이상이어야 합니다.");
+        JPAQuery<T> chunkQuery = query.apply(getQueryFactory());
+        ComparablePath idPath = idPath(chunkQuery);
+        if (lastId != null) {
+            chunkQuery.where(idPath.gt((Comparable) lastId));
+        }
+        return chunkQuery
+                .orderBy(idPath.asc())
+                .limit(chunkSize)
+                .fetch();
+    }
 
+    // QMember.member 가 아닌 별칭(new QMember("m"))으로 쿼리해도 같은 별칭의 id 경로를 사용한다.
+    private ComparablePath idPath(JPAQuery<?> query) {
+        List<JoinExpression> joins = query.getMetadata().getJoins();
+        Assert.isTrue(!joins.isEmpty() && joins.get(0).getTarget() instanceof EntityPath
+                        && domainClass.equals(joins.get(0).getTarget().getType()),
+                "청크 단위 조회는 도메인 엔티티를 먼저 from 해야 합니다.");
+        EntityPath<?> root = (EntityPath<?>) joins.get(0).getTarget();
+        return new PathBuilder<>(root.getType(), root.getMetadata())
+                .getComparable(entityInformation.getIdAttribute().getName(), (Class) entityInformation.getIdType());
+    }
+
+    private Object idOf(Object entity) {
+        Assert.isInstanceOf(domainClass, entity, "청크 단위 조회는 도메인 엔티티를 select 해야 합니다.");
+        return entityInformation.getId(entity);
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,100 @@
+package com.study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 조회가 동시에 들어오면 먼저 들어온 호출(leader)만 DB 를 조회하고, 나머지는 그 결과(또는 예외)를 같이 받는다.
+ * 결과 객체를 여러 스레드가 공유하므로 DTO 처럼 변경하지 않는 결과에만 사용하고, 엔티티는 사용하지 않는다.
+ * 트랜잭션 밖(컨트롤러)에서 호출해야 한다. 트랜잭션 안에서는 커밋하지 않은 변경이 다른 요청의 결과에 섞일 수 있다.
+ * - singleflight.calls : 호출 수 (result=executed 는 DB 조회, shared 는 다른 호출의 결과를 받은 수)
+ * - singleflight.shared.per.execution : DB 조회 1번당 결과를 같이 받은 호출 수
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<List<Object>, Call> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${querydsl.single-flight.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param name  조회 이름 (키와 함께 in-flight 키가 된다)
+     * @param key   equals/hashCode 가 조회 결과를 결정하는 값 (정규화된 검색 조건, Pageable 등)
+     * @param tags  메트릭 태그, 키 값을 그대로 쓰면 태그 종류가 너무 많아지므로 쿼리 모양 정도만 넣는다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, Object key, Tags tags, Supplier<T> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        Tags meterTags = tags.and("name", name);
+        List<Object> flightKey = List.of(name, key);
+        Call call = new Call();
+        Call leader = inFlight.putIfAbsent(flightKey, call);
+        if (leader != null) {
+            leader.shared.incrementAndGet();
+            calls(meterTags, "shared").increment();
+            return (T) leader.await();
+        }
+
+        calls(meterTags, "executed").increment();
+        try {
+            T result = query.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, call);
+            DistributionSummary.builder("singleflight.shared.per.execution")
+                    .tags(meterTags)
+                    .register(meterRegistry)
+                    .record(call.shared.get());
+        }
+    }
+
+    private Counter calls(Tags tags, String result) {
+        return Counter.builder("singleflight.calls")
+                .tags(tags)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static class Call extends CompletableFuture<Object> {
+        private final AtomicInteger shared = new AtomicInteger();
+
+        private Object await() {
+            try {
+                return join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangeListener;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import jakarta.persistence.EntityManager;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 회원 대량 적재
+ * - id 는 시퀀스에서 블록 단위로 할당 (Member, Team 의 @SequenceGenerator allocationSize)
+ * - hibernate.jdbc.batch_size, order_inserts 로 insert 를 JDBC 배치로 묶어서 전송
+ * - flush-interval 건마다 flush/clear 해서 영속성 컨텍스트 크기를 일정하게 유지
+ * - commit-interval 건마다 커밋 (이미 트랜잭션 안에서 호출하면 그 트랜잭션에 참여)
+ */
+@Slf4j
+@Service
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final int flushInterval;
+    private final int commitInterval;
+
+    public MemberBulkLoader(EntityManager em,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher publisher,
+                            @Value("${querydsl.bulk-load.flush-interval:100}") int flushInterval,
+                            @Value("${querydsl.bulk-load.commit-interval:10000}") int commitInterval) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publisher = publisher;
+        this.flushInterval = flushInterval;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * 팀을 만들고 회원을 memberCount 명 적재한다.
+     * 회원 i 는 username = member{i}, age = i, team = teamNames[i % 팀 수]
+     * 영속성 컨텍스트를 주기적으로 비우므로 호출 전에 조회한 엔티티는 준영속 상태가 된다.
+     */
+    public LoadResult load(List<String> teamNames, int memberCount) {
+        if (teamNames.isEmpty()) {
+            throw new IllegalArgumentException("팀이 하나 이상 필요합니다.");
+        }
+        long start = System.nanoTime();
+        long[] teamIds = EntityChangeListener.suspend(() -> {
+            long[] ids = transactionTemplate.execute(status -> persistTeams(teamNames));
+            for (int from = 0; from < memberCount; from += commitInterval) {
+                int to = Math.min(from + commitInterval, memberCount);
+                int chunkStart = from;
+                transactionTemplate.executeWithoutResult(status -> persistMembers(ids, chunkStart, to));
+            }
+            return ids;
+        });
+
+        // 엔티티별 이벤트 대신 벌크 이벤트를 한 번씩 발행한다.
+        publisher.publishEvent(new EntityChangedEvent(Team.class, true));
+        publisher.publishEvent(new EntityChangedEvent(Member.class, true));
+
+        LoadResult result = new LoadResult(teamIds.length, memberCount, Duration.ofNanos(System.nanoTime() - start));
+        log.info("bulk load completed. {}", result);
+        return result;
+    }
+
+    private long[] persistTeams(List<String> teamNames) {
+        long[] ids = new long[teamNames.size()];
+        for (int i = 0; i < ids.length; i++) {
+            Team team = new Team(teamNames.get(i));
+            em.persist(team);
+            ids[i] = team.getId();
+        }
+        em.flush();
+        em.clear();
+        return ids;
+    }
+
+    private void persistMembers(long[] teamIds, int from, int to) {
+        for (int i = from; i < to; i++) {
+            // changeTeam() 은 team.getMembers() 로 프록시를 초기화하므로 참조만 설정한다.
+            Member member = new Member("member" + i, i);
+            member.setTeam(em.getReference(Team.class, teamIds[i % teamIds.length]));
+            em.persist(member);
+            if ((i - from + 1) % flushInterval == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Getter
+    @ToString
+    public static class LoadResult {
+        private final int teamCount;
+        private final int memberCount;
+        private final Duration elapsed;
+        private final long rowsPerSecond;
+
+        public LoadResult(int teamCount, int memberCount, Duration elapsed) {
+            this.teamCount = teamCount;
+            this.memberCount = memberCount;
+            this.elapsed = elapsed;
+            long nanos = Math.max(elapsed.toNanos(), 1);
+            this.rowsPerSecond = (teamCount + memberCount) * 1_000_000_000L / nanos;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.MemberSearchTemplates;
+import com.study.querydsl.repository.support.JsonRowWriter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 회원 검색 결과 내보내기
+ * 결과를 List 로 모으지 않고 한 건씩 읽어서 바로 Writer 로 쓰기 때문에 건수와 상관없이 힙 사용량이 일정하다.
+ */
+@Service
+public class MemberExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new InvalidExportFormatException(value);
+        }
+    }
+
+    private static final String CSV_HEADER = "memberId,username,age,teamId,teamName";
+
+    private final MemberRepository memberRepository;
+    private final MemberSearchTemplates searchTemplates;
+    private final EntityManager em;
+    private final JsonFactory jsonFactory;
+    private final JsonRowWriter jsonRowWriter;
+    private final DistributionSummary streamBytes;
+    private final DistributionSummary streamRows;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public MemberExportService(MemberRepository memberRepository,
+                               MemberSearchTemplates searchTemplates,
+                               EntityManager em,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${querydsl.export.fetch-size:1000}") int fetchSize,
+                               @Value("${querydsl.export.clear-interval:1000}") int clearInterval) {
+        this.memberRepository = memberRepository;
+        this.searchTemplates = searchTemplates;
+        this.em = em;
+        this.jsonFactory = objectMapper.getFactory();
+        this.jsonRowWriter = new JsonRowWriter(searchTemplates.getProjection());
+        this.streamBytes = DistributionSummary.builder("member.search.stream.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.streamRows = DistributionSummary.builder("member.search.stream.rows")
+                .register(meterRegistry);
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * @return 내보낸 건수
+     */
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, Format format, Writer writer) throws IOException {
+        long count = 0;
+        try (Stream<MemberTeamDto> stream = memberRepository.streamSearch(condition, fetchSize)) {
+            RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next());
+                count++;
+                // 영속성 컨텍스트에 쌓이는 객체가 없도록 주기적으로 비우고, 버퍼도 내보낸다.
+                if (count % clearInterval == 0) {
+                    em.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * 검색 결과를 JSON 배열로 out 에 쓴다. (/v1/members/stream)
+     * List, DTO 를 만들지 않고 JDBC 에서 읽은 row(Object[])를 바로 JsonGenerator 로 쓰므로 힙 사용량이 결과 크기와 무관하다.
+     *
+     * @return 쓴 건수
+     */
+    @Transactional(readOnly = true)
+    public long writeJson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(out);
+        long count = 0;
+        try (Stream<Object[]> rows = searchTemplates.streamRows(condition, fetchSize);
+             JsonGenerator generator = jsonFactory.createGenerator(counting)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                jsonRowWriter.write(generator, iterator.next());
+                count++;
+                if (count % clearInterval == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+        streamRows.record(count);
+        streamBytes.record(counting.count);
+        return count;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private interface RowWriter {
+        void write(MemberTeamDto row) throws IOException;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            // 응답 Writer 는 컨테이너가 닫고 flush 도 직접 하므로 generator 는 버퍼만 넘기게 한다.
+            this.generator = jsonFactory.createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void write(MemberTeamDto row) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("memberId", row.getMemberId());
+            generator.writeStringField("username", row.getUsername());
+            generator.writeNumberField("age", row.getAge());
+            if (row.getTeamId() != null) {
+                generator.writeNumberField("teamId", row.getTeamId());
+            } else {
+                generator.writeNullField("teamId");
+            }
+            generator.writeStringField("teamName", row.getTeamName());
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(MemberTeamDto row) throws IOException {
+            writer.write(String.valueOf(row.getMemberId()));
+            writer.write(',');
+            writer.write(escape(row.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getAge()));
+            writer.write(',');
+            writer.write(row.getTeamId() != null ? String.valueOf(row.getTeamId()) : "");
+            writer.write(',');
+            writer.write(escape(row.getTeamName()));
+            writer.write('\n');
+        }
+
+        private String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
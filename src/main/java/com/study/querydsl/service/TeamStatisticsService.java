@@ -0,0 +1,330 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.entity.event.EntityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 나이 통계(count, sum, min, max, avg)를 미리 계산해 두고 변경분만 반영한다.
+ * (select team.name, member.age.avg() ... groupBy(team.name) 를 매번 실행하지 않도록)
+ * - 하이버네이트 post-commit 리스너로 커밋된 회원/팀 insert, update, delete 를 반영
+ * - min, max 는 삭제 시 다시 계산할 수 있도록 팀마다 나이별 회원 수를 들고 있다. (나이 종류만큼의 메모리)
+ * - 벌크 연산(EntityChangedEvent bulk)은 바뀐 행을 알 수 없으므로 트랜잭션 종료 후 stale 로 표시하고
+ *   refresh-interval 마다 스케줄러 스레드에서 한 번만 다시 계산 (청크마다 이벤트가 와도 계산은 모아서 한 번)
+ * - 주기적으로 DB 와 비교해서(reconcile) 어긋난 팀 수를 team.stats.reconcile.drift 로 기록하고 DB 값으로 바꾼다.
+ */
+@Slf4j
+@Service
+public class TeamStatisticsService implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final int RECOMPUTE_ATTEMPTS = 3;
+
+    private final boolean enabled;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+    private final Counter recomputes;
+    private final Counter drift;
+
+    // 아래 필드는 this 로 동기화한다.
+    private final Map<Long, Rollup> rollups = new HashMap<>();
+    // 변경이 반영될 때마다 증가, 다시 계산하는 도중 변경이 있었으면 계산 결과를 버린다.
+    private long generation;
+    // 증분 반영이 불가능했던 경우 (다음 reconcile 에서 다시 계산)
+    private boolean stale = true;
+
+    public TeamStatisticsService(@Value("${querydsl.team-stats.enabled:true}") boolean enabled,
+                                 JPAQueryFactory queryFactory,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManagerFactory entityManagerFactory,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.queryFactory = queryFactory;
+        // 트랜잭션 종료 이벤트에서도 호출하므로 항상 새 트랜잭션에서 읽는다.
+        // 복제본 라우팅 시 복제 지연 동안의 데이터로 계산하지 않도록 읽기 전용으로 하지 않는다. (primary 에서 계산)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        this.recomputes = meterRegistry.counter("team.stats.recompute");
+        this.drift = Counter.builder("team.stats.reconcile.drift")
+                .description("reconcile 시 DB 와 달랐던 팀 수")
+                .register(meterRegistry);
+
+        if (enabled) {
+            EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            listeners.appendListeners(EventType.POST_COMMIT_INSERT, this);
+            listeners.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+            listeners.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        }
+    }
+
+    /**
+     * 팀 id 순 통계, 회원 테이블을 조회하지 않는다. (팀 수 O(teams))
+     */
+    public synchronized List<TeamStatisticsDto> getStatistics() {
+        List<TeamStatisticsDto> result = new ArrayList<>(rollups.size());
+        new TreeMap<>(rollups).forEach((teamId, rollup) -> result.add(rollup.toDto(teamId)));
+        return result;
+    }
+
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * DB 에서 다시 계산해서 바꾼다.
+     *
+     * @return 기존 값과 달랐던 팀 수, 계산 도중 계속 변경이 있어서 바꾸지 못했으면 -1
+     */
+    public long recompute() {
+        for (int attempt = 0; attempt < RECOMPUTE_ATTEMPTS; attempt++) {
+            long start;
+            synchronized (this) {
+                start = generation;
+            }
+
+            // 집계 쿼리는 락 밖에서 실행한다. 나이별 회원 수를 세어서 min, max 도 함께 구한다.
+            // (팀 수 x 나이 종류)건이므로 QueryGuard 의 max-rows 가 적용되지 않는 stream 으로 읽는다.
+            List<Tuple> rows = transactionTemplate.execute(status -> {
+                try (Stream<Tuple> result = queryFactory
+                        .select(team.id, team.name, member.age, member.count())
+                        .from(team)
+                        .leftJoin(team.members, member)
+                        .groupBy(team.id, team.name, member.age)
+                        .stream()) {
+                    return result.toList();
+                }
+            });
+
+            Map<Long, Rollup> computed = new HashMap<>();
+            for (Tuple row : rows) {
+                Rollup rollup = computed.computeIfAbsent(row.get(team.id), id -> new Rollup(row.get(team.name)));
+                Integer age = row.get(member.age);
+                if (age != null) {
+                    rollup.add(age, row.get(member.count()));
+                }
+            }
+
+            synchronized (this) {
+                if (generation != start) {
+                    continue;
+                }
+                long changed = diff(rollups, computed);
+                rollups.clear();
+                rollups.putAll(computed);
+                stale = false;
+                recomputes.increment();
+                return changed;
+            }
+        }
+        synchronized (this) {
+            stale = true;
+        }
+        log.warn("team statistics recompute skipped, changed while computing");
+        return -1;
+    }
+
+    @Scheduled(fixedDelayString = "${querydsl.team-stats.reconcile-interval:PT1M}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        boolean wasStale = isStale();
+        long changed = recompute();
+        // 처음 계산이거나 증분 반영을 포기한 경우는 어긋난 것으로 보지 않는다.
+        if (changed > 0 && !wasStale) {
+            drift.increment(changed);
+            log.warn("team statistics drift, teams={}", changed);
+        }
+    }
+
+    /**
+     * stale 이면 DB 에서 다시 계산한다. (벌크 연산 후 또는 증분 반영을 포기한 경우)
+     */
+    @Scheduled(fixedDelayString = "${querydsl.team-stats.refresh-interval:PT1S}")
+    public void refresh() {
+        if (enabled && isStale()) {
+            recompute();
+        }
+    }
+
+    // 벌크 연산은 커밋(또는 롤백) 후 stale 로만 표시하고 계산은 refresh 에 맡긴다. 트랜잭션 밖에서 발행된 이벤트는 바로 표시
+    // (커밋 전에 표시하면 커밋 전 데이터로 계산한 결과가 stale 을 지울 수 있다.)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterBulk(EntityChangedEvent event) {
+        if (enabled && event.isBulk() && event.isAbout(Member.class, Team.class)) {
+            synchronized (this) {
+                // 진행 중인 계산은 벌크 연산 전 데이터일 수 있으므로 버린다.
+                generation++;
+                stale = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    @Override
+    public synchronized void onPostInsert(PostInsertEvent event) {
+        generation++;
+        if (event.getEntity() instanceof Team inserted) {
+            rollups.computeIfAbsent(inserted.getId(), id -> new Rollup(inserted.getName()));
+        } else {
+            Member inserted = (Member) event.getEntity();
+            add(teamId(inserted.getTeam()), inserted.getAge(), 1);
+        }
+    }
+
+    @Override
+    public synchronized void onPostUpdate(PostUpdateEvent event) {
+        generation++;
+        if (event.getEntity() instanceof Team updated) {
+            Rollup rollup = rollups.get(updated.getId());
+            if (rollup != null) {
+                rollup.name = updated.getName();
+            }
+            return;
+        }
+        Member updated = (Member) event.getEntity();
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // 이전 값을 모르면 (ex. 분리된 엔티티 update) 다음 reconcile 에서 다시 계산한다.
+            stale = true;
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Integer oldAge = (Integer) oldState[persister.getPropertyIndex("age")];
+        Long oldTeamId = teamId(oldState[persister.getPropertyIndex("team")]);
+        add(oldTeamId, oldAge != null ? oldAge : 0, -1);
+        add(teamId(updated.getTeam()), updated.getAge(), 1);
+    }
+
+    @Override
+    public synchronized void onPostDelete(PostDeleteEvent event) {
+        generation++;
+        if (event.getEntity() instanceof Team deleted) {
+            rollups.remove(deleted.getId());
+        } else {
+            Member deleted = (Member) event.getEntity();
+            add(teamId(deleted.getTeam()), deleted.getAge(), -1);
+        }
+    }
+
+    // 롤백된 변경은 반영하지 않는다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private void add(Long teamId, int age, long delta) {
+        if (teamId == null) {
+            return;
+        }
+        Rollup rollup = rollups.get(teamId);
+        if (rollup == null) {
+            // 아직 모르는 팀이면 이름을 알 수 없으므로 다음 reconcile 에서 다시 계산한다.
+            stale = true;
+            return;
+        }
+        rollup.add(age, delta);
+    }
+
+    // 프록시는 초기화하지 않고 id 만 꺼낸다.
+    private Long teamId(Object team) {
+        return team != null ? (Long) persistenceUnitUtil.getIdentifier(team) : null;
+    }
+
+    private static long diff(Map<Long, Rollup> before, Map<Long, Rollup> after) {
+        long changed = before.keySet().stream().filter(id -> !after.containsKey(id)).count();
+        for (Map.Entry<Long, Rollup> entry : after.entrySet()) {
+            if (!entry.getValue().sameAs(before.get(entry.getKey()))) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static class Rollup {
+        private String name;
+        private long count;
+        private long sum;
+        // 나이 -> 회원 수 (min = 첫 키, max = 마지막 키)
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        private Rollup(String name) {
+            this.name = name;
+        }
+
+        private void add(int age, long delta) {
+            count += delta;
+            sum += age * delta;
+            ages.merge(age, delta, Long::sum);
+            if (ages.get(age) <= 0) {
+                ages.remove(age);
+            }
+        }
+
+        private boolean sameAs(Rollup other) {
+            return other != null && Objects.equals(name, other.name) && count == other.count
+                    && sum == other.sum && ages.equals(other.ages);
+        }
+
+        private TeamStatisticsDto toDto(Long teamId) {
+            if (count <= 0) {
+                return new TeamStatisticsDto(teamId, name, 0, null, null, null, null);
+            }
+            return new TeamStatisticsDto(teamId, name, count, sum, ages.firstKey(), ages.lastKey(),
+                    (double) sum / count);
+        }
+    }
+}
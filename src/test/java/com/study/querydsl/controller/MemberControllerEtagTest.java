@@ -0,0 +1,123 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.monitoring.RepositoryMetricsAspect;
+import com.study.querydsl.repository.MemberDataVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 데이터 버전은 커밋 후에도 증가하므로 트랜잭션 없이 커밋하고 테스트 후 직접 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerEtagTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    MemberDataVersion memberDataVersion;
+
+    TransactionTemplate tx;
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team etagTeam = new Team("etagTeam");
+            em.persist(etagTeam);
+            em.persist(new Member("etag1", 10, etagTeam));
+            return etagTeam.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'etag%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'etagTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void notModifiedUntilDataChanges() throws Exception {
+        String etag = mockMvc.perform(get("/v2/members").param("teamName", "etagTeam"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        long executed = searchPageSimpleCount();
+        mockMvc.perform(get("/v2/members").param("teamName", "etagTeam").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(searchPageSimpleCount()).isEqualTo(executed);
+
+        // 조건이 다르면 다른 ETag
+        mockMvc.perform(get("/v2/members").param("teamName", "etagTeam").param("ageGoe", "5")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        tx.executeWithoutResult(status -> em.persist(new Member("etag2", 20, em.find(Team.class, teamId))));
+
+        String changed = mockMvc.perform(get("/v2/members").param("teamName", "etagTeam")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+    }
+
+    @Test
+    public void etagIdentifiesCanonicalQuery() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("a;b");
+        MemberSearchCondition split = new MemberSearchCondition();
+        split.setUsername("a");
+        split.setTeamName("b");
+        MemberSearchCondition empty = new MemberSearchCondition();
+        empty.setUsername(" ");
+        PageRequest page = PageRequest.of(0, 20, Sort.by("username"));
+
+        String etag = memberDataVersion.etag("v2", condition, page);
+        assertThat(memberDataVersion.etag("v2", condition, PageRequest.of(0, 20, Sort.by("username")))).isEqualTo(etag);
+        // 구분자가 들어간 값, 다른 정렬 방향, 다른 페이지는 다른 ETag
+        assertThat(memberDataVersion.etag("v2", split, page)).isNotEqualTo(etag);
+        assertThat(memberDataVersion.etag("v2", condition, PageRequest.of(0, 20, Sort.by("username").descending())))
+                .isNotEqualTo(etag);
+        assertThat(memberDataVersion.etag("v2", condition, PageRequest.of(1, 20, Sort.by("username")))).isNotEqualTo(etag);
+        // 공백 조건은 조건 없음과 같다.
+        assertThat(memberDataVersion.etag("v2", empty, Pageable.unpaged()))
+                .isEqualTo(memberDataVersion.etag("v2", new MemberSearchCondition(), Pageable.unpaged()));
+    }
+
+    private long searchPageSimpleCount() {
+        return meterRegistry.find(RepositoryMetricsAspect.TIMER).tag("method", "searchPageSimple").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
@@ -0,0 +1,49 @@
+package com.study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 잘못된 요청 파라미터는 쿼리를 실행하지 않고 400 으로 응답한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerValidationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void v5Sort() throws Exception {
+        mockMvc.perform(get("/v5/members").param("sort", "team.name,desc"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/v5/members").param("sort", "team.members"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void v4SizeAndSort() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("sort", "username"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v4/members").param("size", "5").param("sort", "age"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void exportFormat() throws Exception {
+        mockMvc.perform(get("/members/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/export").param("format", "CSV"))
+                .andExpect(status().isOk());
+    }
+}
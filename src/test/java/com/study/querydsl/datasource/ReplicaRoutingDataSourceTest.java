@@ -0,0 +1,119 @@
+package com.study.querydsl.datasource;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.support.BulkMutationResult;
+import com.study.querydsl.repository.support.ChunkedBulkExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * primary 1개, 복제본 2개를 각각 별도의 H2 메모리 DB 로 띄운다.
+ * 복제가 없으므로 primary 스키마를 복제본에 복사하고, 복제본마다 다른 회원을 넣어서 어디서 읽었는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "querydsl.routing.enabled=true",
+        "querydsl.routing.replica-urls=jdbc:h2:mem:routing-replica1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:routing-replica2;DB_CLOSE_DELAY=-1",
+        "querydsl.routing.lag-query=select seconds from replica_lag",
+        "querydsl.routing.max-lag=10s",
+        "querydsl.routing.lag-check-interval=PT1H"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ReplicaPool replicaPool;
+    @Autowired
+    ChunkedBulkExecutor chunkedBulkExecutor;
+
+    JdbcTemplate primary;
+
+    @BeforeEach
+    public void before() {
+        // 쓰기는 primary 로 간다.
+        memberRepository.save(new Member("routingPrimary"));
+
+        primary = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing-primary", "sa", ""));
+        List<String> schema = primary.queryForList("script nodata", String.class);
+        for (ReplicaPool.Replica replica : replicaPool.getReplicas()) {
+            JdbcTemplate jdbc = new JdbcTemplate(replica.getDataSource());
+            jdbc.execute("drop all objects");
+            schema.forEach(jdbc::execute);
+            jdbc.execute("create table replica_lag (seconds int)");
+            jdbc.update("insert into replica_lag values (0)");
+            jdbc.update("insert into member (member_id, username, age) values (1, ?, 10)", replica.getName());
+        }
+        replicaPool.checkLag();
+    }
+
+    @AfterEach
+    public void after() {
+        primary.update("delete from member where username = 'routingPrimary'");
+    }
+
+    @Test
+    public void readOnlyToReplicas() {
+        assertThat(primary.queryForObject("select count(*) from member where username = 'routingPrimary'", Long.class))
+                .isEqualTo(1L);
+
+        // 라운드 로빈으로 두 복제본에서 번갈아 읽는다.
+        assertThat(searchTwice()).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    public void replicaLagFallback() {
+        lag("replica-2", 60);
+        assertThat(searchTwice()).containsExactly("replica-1");
+
+        // 모든 복제본이 지연되면 primary 에서 읽는다.
+        lag("replica-1", 60);
+        assertThat(searchTwice()).containsExactly("routingPrimary");
+
+        lag("replica-2", 0);
+        assertThat(searchTwice()).containsExactly("replica-2");
+    }
+
+    @Test
+    public void chunkedBulkReadsBoundsFromPrimary() {
+        // 복제본에는 아직 routingPrimary 가 없다. (복제 지연) id 범위를 복제본에서 읽으면 아무것도 수정하지 않는다.
+        BulkMutationResult result = chunkedBulkExecutor.update(member, member.id, member.username.eq("routingPrimary"),
+                clause -> clause.set(member.age, 99));
+
+        assertThat(result.getAffectedRows()).isEqualTo(1);
+        assertThat(primary.queryForObject("select age from member where username = 'routingPrimary'", Integer.class))
+                .isEqualTo(99);
+    }
+
+    private Set<String> searchTwice() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        return List.of(memberRepository.search(condition), memberRepository.search(condition)).stream()
+                .flatMap(List::stream)
+                .map(MemberTeamDto::getUsername)
+                .collect(Collectors.toSet());
+    }
+
+    private void lag(String replicaName, int seconds) {
+        replicaPool.getReplicas().stream()
+                .filter(r -> r.getName().equals(replicaName))
+                .forEach(r -> new JdbcTemplate(r.getDataSource()).update("update replica_lag set seconds = ?", seconds));
+        replicaPool.checkLag();
+    }
+}
@@ -0,0 +1,92 @@
+package com.study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인덱스 생성(DDL)은 트랜잭션을 커밋하므로 트랜잭션 없이 실행하고 만든 인덱스는 직접 지운다.
+ */
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+
+    IndexAdvisor indexAdvisor;
+    List<String> createdIndexes = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        indexAdvisor = new IndexAdvisor(meterRegistry, em, queryFactory, jdbcTemplate, emf, true, 16, 1, false);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("advisor");
+        condition.setAgeGoe(10);
+        memberRepository.search(condition);
+    }
+
+    @AfterEach
+    public void after() {
+        for (String index : createdIndexes) {
+            jdbcTemplate.execute("drop index if exists " + index);
+        }
+    }
+
+    @Test
+    public void recommendAndCreate() {
+        IndexAdvisor.Report report = indexAdvisor.analyze(false);
+
+        IndexAdvisor.ShapeAnalysis analysis = shape(report, "username+ageGoe");
+        assertThat(analysis.isFullScan()).isTrue();
+        // 페이징 검색의 content(offset/limit), count 쿼리 실행 계획
+        assertThat(analysis.getPlan()).containsIgnoringCase("offset");
+        assertThat(analysis.getCountPlan()).containsIgnoringCase("count(");
+        // 분석은 검색 실행 횟수에 포함되지 않는다.
+        assertThat(shape(indexAdvisor.analyze(false), "username+ageGoe").getExecutions()).isEqualTo(analysis.getExecutions());
+        assertThat(report.getRecommendations())
+                .anyMatch(r -> r.getTable().equals("member") && r.getColumns().equals(List.of("username", "age")));
+
+        IndexAdvisor.Report created = indexAdvisor.analyze(true);
+        created.getRecommendations().forEach(r -> createdIndexes.add(r.getIndexName()));
+
+        assertThat(created.getRecommendations()).allMatch(IndexAdvisor.Recommendation::isCreated);
+        assertThat(shape(created, "username+ageGoe").getPlanAfter())
+                .doesNotContain("tableScan")
+                .contains("idx_member_username_age".toUpperCase());
+        assertThat(shape(created, "username+ageGoe").getCountPlanAfter()).doesNotContain("tableScan");
+        // 만든 인덱스로 처리되는 조건은 다시 추천하지 않는다.
+        assertThat(indexAdvisor.analyze(false).getRecommendations())
+                .noneMatch(r -> r.getTable().equals("member") && r.getColumns().equals(List.of("username", "age")));
+    }
+
+    private IndexAdvisor.ShapeAnalysis shape(IndexAdvisor.Report report, String name) {
+        return report.getShapes().stream()
+                .filter(s -> s.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 테스트 설정(src/test/resources/application.properties)은 mode=fail
+ */
+@SpringBootTest
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("nPlusOneTeam" + i);
+            em.persist(team);
+            em.persist(new Member("nPlusOne" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void lazyLoadingInLoop() {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .where(member.username.startsWith("nPlusOne"))
+                .fetch();
+
+        assertThatThrownBy(() -> members.forEach(m -> m.getTeam().getName()))
+                .isInstanceOf(NPlusOneQueryException.class)
+                .hasMessageContaining("from team");
+    }
+
+    @Test
+    public void repeatedQueriesAreNotLazyLoading() {
+        // 파라미터만 바꿔 직접 반복 실행한 쿼리는 N+1 이 아니다.
+        for (int i = 0; i < 6; i++) {
+            assertThat(queryFactory
+                    .select(member.username)
+                    .from(member)
+                    .where(member.age.eq(i), member.username.startsWith("nPlusOne"))
+                    .fetchOne()).isEqualTo("nPlusOne" + i);
+        }
+    }
+
+    @Test
+    public void fetchJoin() {
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.username.startsWith("nPlusOne"))
+                .fetch();
+
+        assertThat(members).extracting(m -> m.getTeam().getName()).hasSize(6);
+    }
+}
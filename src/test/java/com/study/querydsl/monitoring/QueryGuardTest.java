@@ -0,0 +1,146 @@
+package com.study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberSearchTemplates;
+import com.study.querydsl.repository.support.CountQueries;
+import com.study.querydsl.repository.support.ExtendedJPAQueryFactory;
+import com.study.querydsl.repository.support.GuardedJPAQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class QueryGuardTest {
+
+    @Autowired
+    EntityManager em;
+
+    QueryGuard guard;
+
+    @BeforeEach
+    public void before() {
+        guard = new QueryGuard("fail", 2, new SimpleMeterRegistry());
+        Team team = new Team("guardTeam");
+        em.persist(team);
+        em.persist(new Member("guard1", 10, team));
+        em.persist(new Member("guard2", 20, team));
+        em.persist(new Member("guard3", 30, team));
+    }
+
+    @Test
+    public void unboundedEntityFetch() {
+        assertThatThrownBy(() -> query().select(member).from(member).where(member.username.startsWith("guard")).fetch())
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("UNBOUNDED_ENTITY_FETCH");
+
+        // limit 이 있거나 단건 조회는 허용
+        assertThat(query().select(member).from(member).where(member.username.startsWith("guard")).limit(2).fetch()).hasSize(2);
+        assertThat(query().select(member).from(member).where(member.username.eq("guard1")).fetchOne()).isNotNull();
+    }
+
+    @Test
+    public void cartesian() {
+        assertThatThrownBy(() -> query().select(member.username, team.name).from(member, team).limit(2).fetch())
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("CARTESIAN");
+
+        // 루트끼리 비교하는 조건이 있는 세타 조인은 허용
+        assertThat(query().select(member.username).from(member, team)
+                .where(member.username.eq(team.name), member.age.gt(0))
+                .fetch()).isEmpty();
+    }
+
+    @Test
+    public void collectionFetchJoinPagination() {
+        assertThatThrownBy(() -> query().select(team).from(team).join(team.members, member).fetchJoin()
+                .where(team.name.eq("guardTeam"))
+                .fetchFirst())
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("FETCH_JOIN_PAGINATION");
+    }
+
+    @Test
+    public void maxRows() {
+        assertThat(query().select(member.username).from(member).where(member.username.in("guard1", "guard2")).fetch())
+                .hasSize(2);
+
+        assertThatThrownBy(() -> query().select(member.username).from(member).where(member.username.startsWith("guard")).fetch())
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("max-rows(2)");
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    public void collectionFetchJoinMaxRows(CapturedOutput output) {
+        for (int i = 0; i < 2; i++) {
+            Team other = new Team("guardFetchTeam" + i);
+            em.persist(other);
+            em.persist(new Member("guardFetch" + i, 40, other));
+        }
+        em.flush();
+        em.clear();
+        // UNBOUNDED_ENTITY_FETCH 는 로그만 남기고 maxRows 만 적용
+        guard = new QueryGuard("log", 2, new SimpleMeterRegistry());
+
+        // 팀 2개, 행 4개 (guardTeam 의 회원 3명) -> 루트 기준으로 maxRows(2) 이내
+        assertThat(query().select(team).from(team).join(team.members, member).fetchJoin()
+                .where(team.name.in("guardTeam", "guardFetchTeam0"))
+                .fetch())
+                .extracting("name").containsExactlyInAnyOrder("guardTeam", "guardFetchTeam0");
+
+        assertThatThrownBy(() -> query().select(team).from(team).join(team.members, member).fetchJoin()
+                .where(team.name.startsWith("guard"))
+                .fetch())
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("max-rows(2)");
+
+        // limit 을 붙이지 않으므로 메모리 페이징(HHH90003004)이 발생하지 않는다.
+        assertThat(output).doesNotContain("HHH90003004");
+    }
+
+    @Test
+    public void templateSearchMaxRows() {
+        MemberSearchTemplates templates = new MemberSearchTemplates(em, guard, new SimpleMeterRegistry());
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("guardTeam");
+        condition.setAgeLoe(20);
+        assertThat(templates.search(condition)).hasSize(2);
+
+        condition.setAgeLoe(null);
+        assertThatThrownBy(() -> templates.search(condition))
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("max-rows(2)");
+    }
+
+    @Test
+    public void countQueryGuarded() {
+        JPAQueryFactory queryFactory = new ExtendedJPAQueryFactory(em, event -> {
+        }, guard);
+        JPAQuery<String> contentQuery = queryFactory.select(member.username).from(member, team);
+
+        assertThatThrownBy(() -> CountQueries.from(em, queryFactory, contentQuery).fetchOne())
+                .isInstanceOf(QueryGuardException.class)
+                .hasMessageContaining("CARTESIAN");
+    }
+
+    private JPAQuery<Void> query() {
+        return new GuardedJPAQuery<>(em, guard);
+    }
+}
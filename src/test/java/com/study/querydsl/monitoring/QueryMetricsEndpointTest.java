@@ -0,0 +1,124 @@
+package com.study.querydsl.monitoring;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.MemberTestRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsEndpointTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+    @Autowired
+    QueryMetricsEndpoint endpoint;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("metricsTeam");
+        em.persist(team);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("metrics" + i, 500 + i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void recordQueries() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("metricsTeam");
+        condition.setAgeGoe(500);
+        condition.setAgeLoe(600);
+
+        memberRepository.search(condition);
+        memberJpaRepository.searchByWhereParam(condition);
+        memberTestRepository.applyPagination(condition, PageRequest.of(0, 2));
+
+        QueryMetricsEndpoint.QueryStats search = find("MemberRepositoryImpl", "search", "teamName+ageGoe+ageLoe");
+        assertThat(search.getCount()).isPositive();
+        assertThat(search.getMeanStatements()).isGreaterThanOrEqualTo(1);
+        assertThat(search.getPercentilesMs()).containsKeys("p50", "p95", "p99");
+
+        assertThat(find("MemberJpaRepository", "searchByWhereParam", "teamName+ageGoe+ageLoe").getCount()).isPositive();
+        // content + count 두 번 실행
+        assertThat(find("MemberTestRepository", "applyPagination", "teamName+ageGoe+ageLoe").getMeanStatements())
+                .isGreaterThanOrEqualTo(2);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> hibernate = (Map<String, Object>) endpoint.queries().get("hibernate");
+        assertThat(hibernate.get("statisticsEnabled")).isEqualTo(true);
+        assertThat((Long) hibernate.get("queryExecutionCount")).isPositive();
+    }
+
+    @Test
+    public void recordFragmentsAndSpringDataMethods() {
+        memberRepository.findAllAs(member.age.goe(500), new QMemberTeamDto(
+                member.id, member.username, member.age, team.id, team.name), PageRequest.of(0, 2));
+        memberRepository.findByUsername("metrics0");
+        memberRepository.findAll(member.username.eq("metrics1"));
+
+        // content + count
+        assertThat(find("MemberPredicateRepositoryImpl", "findAllAs", "-").getMeanStatements()).isGreaterThanOrEqualTo(2);
+        assertThat(find("MemberRepository", "findByUsername", "-").getCount()).isPositive();
+        assertThat(find("MemberRepository", "findAll", "-").getCount()).isPositive();
+        // 커스텀 구현 메서드는 Spring Data 프록시에서 다시 기록하지 않는다.
+        assertThat(stats()).noneMatch(q -> q.getRepository().equals("MemberRepository") && q.getMethod().equals("findAllAs"));
+    }
+
+    @Test
+    public void recordOtherThreadStatements() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelMetricsTeam");
+
+        memberRepository.searchAsync(condition).join();
+        // 빈 첫 페이지가 아니면 count 가 필요하므로 다른 스레드에서 count 쿼리를 실행한다.
+        memberRepository.searchPageParallel(condition, PageRequest.of(1, 2));
+
+        assertThat(find("MemberRepositoryImpl", "searchAsync", "teamName").getMeanStatements()).isGreaterThanOrEqualTo(1);
+        // content + count
+        assertThat(find("MemberRepositoryImpl", "searchPageParallel", "teamName").getMeanStatements())
+                .isGreaterThanOrEqualTo(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<QueryMetricsEndpoint.QueryStats> stats() {
+        return (List<QueryMetricsEndpoint.QueryStats>) endpoint.queries().get("queries");
+    }
+
+    @SuppressWarnings("unchecked")
+    private QueryMetricsEndpoint.QueryStats find(String repository, String method, String shape) {
+        List<QueryMetricsEndpoint.QueryStats> queries =
+                (List<QueryMetricsEndpoint.QueryStats>) endpoint.queries().get("queries");
+        return queries.stream()
+                .filter(q -> q.getRepository().equals(repository)
+                        && q.getMethod().equals(method)
+                        && q.getShape().equals(shape))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -74,5 +74,29 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void searchByWhereParamAgeBetween() {
+        Team team = new Team("ageBetweenTeam");
+        em.persist(team);
+        em.persist(new Member("ageBetween1", 30, team));
+        em.persist(new Member("ageBetween2", 40, team));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("ageBetweenTeam");
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
 
-}
\ No newline at end of file
+        // ageGoe 는 하한, ageLoe 는 상한 (인자가 바뀌면 결과가 없다.)
+        assertThat(memberJpaRepository.searchByWhereParam(condition))
+                .extracting("username").containsExactly("ageBetween2");
+
+        // 한쪽 조건만 있어도 조회된다.
+        condition.setAgeLoe(null);
+        assertThat(memberJpaRepository.searchByWhereParam(condition))
+                .extracting("username").containsExactly("ageBetween2");
+        condition.setAgeGoe(null);
+        condition.setAgeLoe(35);
+        assertThat(memberJpaRepository.searchByWhereParam(condition))
+                .extracting("username").containsExactly("ageBetween1");
+    }
+}
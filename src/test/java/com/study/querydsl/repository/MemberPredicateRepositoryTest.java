@@ -0,0 +1,120 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.monitoring.SqlCapture;
+import com.study.querydsl.monitoring.StatementCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberPredicateRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("predicateTeam" + i);
+            em.persist(team);
+            em.persist(new Member("predicate" + i, 700 + i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void fetchJoin() {
+        long before = StatementCounter.current();
+
+        List<Member> result = memberRepository.findAllWith(member.age.goe(700), MemberFetchPlan.TEAM_FETCH_JOIN);
+
+        assertThat(result).hasSize(6);
+        assertThat(result).allMatch(m -> emf.getPersistenceUnitUtil().isLoaded(m.getTeam()));
+        assertThat(result).extracting(m -> m.getTeam().getName()).contains("predicateTeam0", "predicateTeam5");
+        assertThat(StatementCounter.current() - before).isEqualTo(1);
+    }
+
+    @Test
+    public void entityGraphPage() {
+        long before = StatementCounter.current();
+
+        Page<Member> result = memberRepository.findAllWith(member.age.goe(700), MemberFetchPlan.TEAM_ENTITY_GRAPH,
+                PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("predicate5", "predicate4", "predicate3", "predicate2");
+        assertThat(result.getTotalElements()).isEqualTo(6);
+        assertThat(result.getContent()).allMatch(m -> emf.getPersistenceUnitUtil().isLoaded(m.getTeam()));
+        // content + count
+        assertThat(StatementCounter.current() - before).isEqualTo(2);
+    }
+
+    @Test
+    public void projectionPage() {
+        Page<MemberTeamDto> result = memberRepository.findAllAs(
+                member.age.goe(700).and(team.name.ne("predicateTeam0")),
+                new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name),
+                PageRequest.of(1, 2, Sort.by("age")));
+
+        assertThat(result.getContent()).extracting("teamName").containsExactly("predicateTeam3", "predicateTeam4");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        // DTO 조회는 영속성 컨텍스트에 엔티티를 올리지 않는다.
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    public void sortWhitelist() {
+        Page<Member> result = memberRepository.findAllWith(member.age.goe(700), MemberFetchPlan.TEAM_ENTITY_GRAPH,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "team.name")));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("predicate5", "predicate4");
+        // 허용 목록에 없는 경로는 쿼리를 실행하지 않고 400 (InvalidSortException)
+        assertThatThrownBy(() -> memberRepository.findAllAs(member.age.goe(700),
+                new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name),
+                PageRequest.of(0, 2, Sort.by("team.members"))))
+                .isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    public void sortByJoinedTeam() {
+        // 이미 join 한 team 으로 정렬하고 team 을 한 번 더 join 하지 않는다.
+        String fetchJoin = SqlCapture.capture(() -> memberRepository.findAllWith(member.age.goe(700),
+                MemberFetchPlan.TEAM_FETCH_JOIN, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "team.name"))));
+        String projection = SqlCapture.capture(() -> memberRepository.findAllAs(member.age.goe(700),
+                new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "team.name"))));
+
+        assertThat(fetchJoin).containsOnlyOnce(" join team ");
+        assertThat(projection).containsOnlyOnce(" join team ");
+
+        Page<MemberTeamDto> result = memberRepository.findAllAs(member.age.goe(700),
+                new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "team.name")));
+        assertThat(result.getContent()).extracting("teamName").containsExactly("predicateTeam5", "predicateTeam4");
+    }
+}
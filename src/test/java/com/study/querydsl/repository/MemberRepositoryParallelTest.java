@@ -0,0 +1,155 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.support.ParallelCountExecutor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * count 쿼리가 별도 트랜잭션에서 실행되므로 데이터를 커밋하고 테스트 후 직접 지운다.
+ */
+@SpringBootTest
+class MemberRepositoryParallelTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team parallelTeam = new Team("parallelTeam");
+            em.persist(parallelTeam);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("parallel" + i, i, parallelTeam));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id in (select t.id from Team t where t.name = :name)")
+                    .setParameter("name", "parallelTeam")
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.name = :name")
+                    .setParameter("name", "parallelTeam")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchPageParallel() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelTeam");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageParallel(condition, PageRequest.of(1, 2));
+
+        assertThat(result.getContent()).extracting("username").containsExactly("parallel2", "parallel3");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+    }
+
+    @Test
+    public void countFallsBackToCallerThread() {
+        // count 스레드가 모두 사용 중이면 count-timeout 후 호출한 스레드에서 count 한다.
+        ThreadPoolTaskExecutor busy = new ThreadPoolTaskExecutor();
+        busy.setCorePoolSize(1);
+        busy.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        busy.submit(() -> {
+            release.await();
+            return null;
+        });
+        try {
+            ParallelCountExecutor executor = new ParallelCountExecutor(busy, transactionManager, Duration.ofMillis(50));
+            List<String> countThreads = new ArrayList<>();
+
+            Page<String> page = executor.getPage(() -> List.of("a", "b"), PageRequest.of(1, 2), () -> {
+                countThreads.add(Thread.currentThread().getName());
+                return 5L;
+            });
+
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(countThreads).containsExactly(Thread.currentThread().getName());
+        } finally {
+            release.countDown();
+            busy.shutdown();
+        }
+    }
+
+    @Test
+    public void runningCountIsNotRepeated() {
+        // 이미 시작한 count 는 count-timeout 이 지나도 호출한 스레드에서 다시 실행하지 않고 결과를 기다린다.
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(1);
+        pool.initialize();
+        try {
+            ParallelCountExecutor executor = new ParallelCountExecutor(pool, transactionManager, Duration.ofMillis(50));
+            List<String> countThreads = new CopyOnWriteArrayList<>();
+
+            Page<String> page = executor.getPage(() -> List.of("a", "b"), PageRequest.of(1, 2), () -> {
+                countThreads.add(Thread.currentThread().getName());
+                sleep(300);
+                return 5L;
+            });
+
+            assertThat(page.getTotalElements()).isEqualTo(5);
+            assertThat(countThreads).hasSize(1).doesNotContain(Thread.currentThread().getName());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void searchAsync() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("parallelTeam");
+        MemberSearchCondition older = new MemberSearchCondition();
+        older.setTeamName("parallelTeam");
+        older.setAgeGoe(3);
+
+        CompletableFuture<List<MemberTeamDto>> all = memberRepository.searchAsync(condition);
+        CompletableFuture<List<MemberTeamDto>> olders = memberRepository.searchAsync(older);
+        CompletableFuture<Page<MemberTeamDto>> page = memberRepository.searchPageComplexAsync(condition, PageRequest.of(0, 2));
+
+        assertThat(all.join()).hasSize(5);
+        assertThat(olders.join()).extracting("username").containsExactlyInAnyOrder("parallel3", "parallel4");
+        assertThat(page.join().getTotalElements()).isEqualTo(5);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.study.querydsl.repository;
 
+import com.study.querydsl.dto.CursorSlice;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.entity.Member;
@@ -11,11 +12,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -24,6 +29,10 @@ class MemberRepositoryTest {
     EntityManager em;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    MemberCountCache countCache;
+    @Autowired
+    MemberSearchTemplates searchTemplates;
 
     @Test
     public void basicTest() {
@@ -94,6 +103,149 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    @Test
+    public void searchPageSortTest() {
+        Team teamA = new Team("sortA");
+        Team teamB = new Team("sortB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("sort1", 20, teamA));
+        em.persist(new Member("sort2", 10, teamB));
+        em.persist(new Member("sort3", 20, teamB));
+        em.persist(new Member("sort4", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        // 같은 나이, 팀 이름 끼리는 member.id 순 (다른 테스트가 남긴 회원은 제외하고 비교)
+        PageRequest pageRequest = PageRequest.of(0, 100,
+                Sort.by(Sort.Order.desc("age"), Sort.Order.asc("teamName")));
+
+        assertThat(memberRepository.searchPageSimple(condition, pageRequest).getContent())
+                .filteredOn(dto -> dto.getUsername().startsWith("sort"))
+                .extracting("username").containsExactly("sort1", "sort4", "sort3", "sort2");
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getContent())
+                .filteredOn(dto -> dto.getUsername().startsWith("sort"))
+                .extracting("username").containsExactly("sort1", "sort4", "sort3", "sort2");
+
+        assertThatThrownBy(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 10, Sort.by("team.members"))))
+                .isInstanceOf(InvalidSortException.class);
+    }
+
+    @Test
+    public void searchTemplateTest() {
+        Team team = new Team("templateTeam");
+        em.persist(team);
+        em.persist(new Member("template1", 10, team));
+        em.persist(new Member("template2", 20, team));
+        em.persist(new Member("template3", 30, null));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("templateTeam");
+        condition.setAgeGoe(15);
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        long used = searchTemplates.getUsage(shape);
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("template2");
+
+        // 같은 모양이면 값이 달라도 같은 템플릿(JPQL)을 사용한다.
+        condition.setAgeGoe(5);
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactly("template1", "template2");
+        assertThat(searchTemplates.getUsage(shape)).isEqualTo(used + 2);
+        assertThat(shape.getName()).isEqualTo("teamName+ageGoe");
+
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("template3");
+        List<MemberTeamDto> result = memberRepository.search(byUsername);
+        assertThat(result).extracting("username").containsExactly("template3");
+        assertThat(result.get(0).getTeamId()).isNull();
+    }
+
+    @Test
+    public void countCacheTest() {
+        Team team = new Team("cacheTeam");
+        em.persist(team);
+        for (int i = 0; i < 4; i++) {
+            em.persist(new Member("cache" + i, i, team));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Page<MemberTeamDto> first = memberRepository.searchPageSimple(condition, pageRequest);
+        long hits = countCache.getHitCount();
+        Page<MemberTeamDto> second = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(first.getTotalElements()).isEqualTo(4);
+        assertThat(second.getTotalElements()).isEqualTo(4);
+        assertThat(countCache.getHitCount()).isEqualTo(hits + 1);
+
+        // 회원이 추가되면(flush) 캐시가 무효화되어 다시 count 한다.
+        em.persist(new Member("cache4", 4, team));
+        em.flush();
+        Page<MemberTeamDto> third = memberRepository.searchPageSimple(condition, pageRequest);
+        assertThat(third.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void searchSliceTest() {
+        Team team = new Team("sliceTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("slice" + i, 10 * (5 - i), team));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sliceTeam");
+
+        CursorSlice<MemberTeamDto> first = memberRepository.searchSlice(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("slice0", "slice1");
+        assertThat(first.isHasNext()).isTrue();
+
+        CursorSlice<MemberTeamDto> second = memberRepository.searchSlice(condition, first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("slice2", "slice3");
+
+        CursorSlice<MemberTeamDto> last = memberRepository.searchSlice(condition, second.getNextCursor(), 2);
+        assertThat(last.getContent()).extracting("username").containsExactly("slice4");
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void searchSliceByAgeTest() {
+        Team team = new Team("sliceTeam");
+        em.persist(team);
+        em.persist(new Member("slice0", 30, team));
+        em.persist(new Member("slice1", 10, team));
+        em.persist(new Member("slice2", 20, team));
+        em.persist(new Member("slice3", 20, team));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sliceTeam");
+
+        CursorSlice<MemberTeamDto> first = memberRepository.searchSliceByAge(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("slice1", "slice2");
+
+        CursorSlice<MemberTeamDto> second = memberRepository.searchSliceByAge(condition, first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("slice3", "slice0");
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    public void invalidCursor() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        // int 범위를 넘는 나이 ("a|4294967306|1", int 로 자르면 10)
+        String overflow = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("a|4294967306|1".getBytes(StandardCharsets.UTF_8));
+
+        // 리포지토리 예외 변환(InvalidDataAccessApiUsageException) 없이 그대로 전달된다.
+        assertThatThrownBy(() -> memberRepository.searchSliceByAge(condition, overflow, 2))
+                .isExactlyInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> memberRepository.searchSlice(condition, "not-a-cursor", 2))
+                .isExactlyInstanceOf(InvalidCursorException.class);
+    }
+
     @Test
     public void querydslPredicateExecutorTest() {
         Team teamA = new Team("teamA");
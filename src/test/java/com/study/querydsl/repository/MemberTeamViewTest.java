@@ -0,0 +1,151 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 뷰는 커밋된 변경만 반영하므로 트랜잭션 없이 실행하고 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.member-view.enabled=true",
+        "querydsl.member-view.refresh-interval=PT1H"
+})
+class MemberTeamViewTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberSearchTemplates searchTemplates;
+    @Autowired
+    MemberTeamView memberTeamView;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("viewTeam");
+            em.persist(team);
+            em.persist(new Member("view1", 10, team));
+            em.persist(new Member("view2", 20, team));
+            em.persist(new Member("view3", 30));
+            return team.getId();
+        });
+        memberTeamView.refresh();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("view")).execute();
+            em.remove(em.find(Team.class, teamId));
+        });
+    }
+
+    @Test
+    public void sameAsDatabase() {
+        assertThat(memberTeamView.isWarm()).isTrue();
+        for (MemberSearchCondition condition : List.of(
+                condition(null, "viewTeam", null, null),
+                condition("view2", null, null, null),
+                condition(null, null, 15, 30),
+                condition(null, "viewTeam", 15, null))) {
+            double hits = hits();
+
+            List<MemberTeamDto> result = memberRepository.search(condition);
+
+            assertThat(hits()).isEqualTo(hits + 1);
+            assertThat(result).usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(transactionTemplate.execute(s -> searchTemplates.search(condition)));
+        }
+    }
+
+    @Test
+    public void committedChanges() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Team.class, teamId).setName("viewTeamRenamed");
+            em.persist(new Member("view4", 40, em.find(Team.class, teamId)));
+            em.find(Member.class, idOf("view3")).setAge(35);
+        });
+        transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, idOf("view1"))));
+
+        // 롤백된 변경은 반영되지 않는다.
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("viewRollback", 10));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(usernames(condition(null, "viewTeam", null, null))).isEmpty();
+        assertThat(usernames(condition(null, "viewTeamRenamed", null, null))).containsExactly("view2", "view4");
+        assertThat(usernames(condition(null, null, 31, 39))).containsExactly("view3");
+        assertThat(usernames(condition("viewRollback", null, null, null))).isEmpty();
+        assertThat(memberTeamView.isWarm()).isTrue();
+    }
+
+    @Test
+    public void bulkInvalidates() {
+        transactionTemplate.executeWithoutResult(status -> queryFactory.update(member)
+                .set(member.age, 99)
+                .where(member.username.startsWith("view"))
+                .execute());
+
+        // cold 상태에서는 DB 에서 조회한다.
+        assertThat(memberTeamView.isWarm()).isFalse();
+        double hits = hits();
+        assertThat(usernames(condition(null, null, 99, null))).containsExactly("view1", "view2", "view3");
+        assertThat(hits()).isEqualTo(hits);
+
+        assertThat(memberTeamView.refresh()).isTrue();
+        assertThat(usernames(condition(null, null, 99, null))).containsExactly("view1", "view2", "view3");
+        assertThat(hits()).isEqualTo(hits + 1);
+    }
+
+    private List<String> usernames(MemberSearchCondition condition) {
+        return memberRepository.search(condition).stream()
+                .map(MemberTeamDto::getUsername)
+                .sorted()
+                .toList();
+    }
+
+    private Long idOf(String username) {
+        return queryFactory.select(member.id).from(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private double hits() {
+        return meterRegistry.get("member.view.search").tag("result", "hit").functionCounter().count();
+    }
+
+    private MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,107 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 청크마다 커밋하는 경우는 트랜잭션 없이 실행하고 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest
+class MemberTestRepositoryChunkTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        // 청크 수가 N+1 감지 threshold(5)보다 많도록 14건을 만든다.
+        transactionTemplate.executeWithoutResult(status -> {
+            Team chunkTeam = new Team("chunkTeam");
+            em.persist(chunkTeam);
+            for (int i = 0; i < 14; i++) {
+                em.persist(new Member("chunk" + i, 2000, chunkTeam));
+            }
+        });
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(2000);
+        condition.setAgeLoe(2000);
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("chunk")).execute();
+            queryFactory.delete(team).where(team.name.eq("chunkTeam")).execute();
+        });
+    }
+
+    @Test
+    public void manyChunks() {
+        // 청크 조회 쿼리는 파라미터만 바뀌어 반복되지만 N+1 로 감지하지 않는다. (테스트는 mode=fail)
+        List<Integer> sizes = new ArrayList<>();
+        assertThat(memberTestRepository.forEachMemberChunk(condition, 2, true, chunk -> sizes.add(chunk.size())))
+                .isEqualTo(14);
+        assertThat(memberTestRepository.forEachMemberChunk(condition, 2, false, chunk -> sizes.add(chunk.size())))
+                .isEqualTo(14);
+        assertThat(sizes).hasSize(14).containsOnly(2);
+
+        List<Integer> streamed = transactionTemplate.execute(status ->
+                memberTestRepository.streamMemberChunks(condition, 2).map(List::size).toList());
+        assertThat(streamed).hasSize(7).containsOnly(2);
+    }
+
+    @Test
+    public void aliasedQuery() {
+        List<String> usernames = new ArrayList<>();
+
+        long count = memberTestRepository.forEachTeamMemberChunk("chunkTeam", 3,
+                chunk -> chunk.forEach(m -> usernames.add(m.getUsername())));
+
+        assertThat(count).isEqualTo(14);
+        assertThat(usernames).hasSize(14).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void commitPerChunk() {
+        AtomicInteger chunks = new AtomicInteger();
+
+        // 세 번째 청크에서 실패해도 앞의 두 청크(4건)는 커밋된 상태로 남는다.
+        assertThatThrownBy(() -> memberTestRepository.forEachMemberChunk(condition, 2, true, chunk -> {
+            if (chunks.incrementAndGet() == 3) {
+                throw new RuntimeException("chunk failed");
+            }
+            chunk.forEach(m -> m.setAge(2001));
+        })).hasMessage("chunk failed");
+
+        assertThat(queryFactory.select(member.count())
+                .from(member)
+                .where(member.username.startsWith("chunk"), member.age.eq(2001))
+                .fetchOne()).isEqualTo(4L);
+    }
+}
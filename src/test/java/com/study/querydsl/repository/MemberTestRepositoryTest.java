@@ -0,0 +1,104 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        // 다른 테스트 데이터와 섞이지 않도록 나이를 크게 잡는다.
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 1000 + i, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000);
+        condition.setAgeLoe(1004);
+    }
+
+    @Test
+    public void searchPageByApplyPage() {
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("age"));
+        Page<Member> result = memberTestRepository.searchPageByApplyPage(condition, pageRequest);
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member0", "member1");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+    }
+
+    @Test
+    public void applyPagination() {
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by("age"));
+        Page<Member> result = memberTestRepository.applyPagination(condition, pageRequest);
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void applyPaginationWithCountQuery() {
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by("age"));
+        Page<Member> result = memberTestRepository.applyPagination2(condition, pageRequest);
+
+        assertThat(result.getContent()).extracting("username").containsExactly("member0", "member1");
+        assertThat(result.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void streamMemberChunks() {
+        List<Member> firstChunk = new ArrayList<>();
+        List<Integer> sizes = memberTestRepository.streamMemberChunks(condition, 2)
+                .peek(chunk -> {
+                    if (firstChunk.isEmpty()) {
+                        firstChunk.addAll(chunk);
+                    }
+                })
+                .map(List::size)
+                .toList();
+
+        assertThat(sizes).containsExactly(2, 2, 1);
+        // 다음 청크를 읽기 전에 영속성 컨텍스트를 비운다.
+        assertThat(firstChunk).extracting("username").containsExactly("member0", "member1");
+        assertThat(firstChunk).noneMatch(em::contains);
+    }
+
+    @Test
+    public void forEachMemberChunk() {
+        List<String> usernames = new ArrayList<>();
+
+        long count = memberTestRepository.forEachMemberChunk(condition, 2, false,
+                chunk -> chunk.forEach(m -> usernames.add(m.getUsername())));
+
+        assertThat(count).isEqualTo(5);
+        assertThat(usernames).containsExactly("member0", "member1", "member2", "member3", "member4");
+    }
+}
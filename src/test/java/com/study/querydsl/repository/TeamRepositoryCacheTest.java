@@ -0,0 +1,104 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.monitoring.StatementCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 담으므로 데이터를 커밋하고 테스트 후 직접 지운다.
+ */
+@SpringBootTest
+class TeamRepositoryCacheTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    long teamId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        teamId = tx.execute(status -> {
+            Team cacheTeam = new Team("cacheTeam");
+            em.persist(cacheTeam);
+            return cacheTeam.getId();
+        });
+        emf.getCache().evictAll();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> queryFactory.delete(team).where(team.name.startsWith("cacheTeam")).execute());
+    }
+
+    @Test
+    public void secondLevelCache() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+        long hits = statistics.getDomainDataRegionStatistics("team").getHitCount();
+        long statements = StatementCounter.current();
+
+        Team cached = tx.execute(status -> em.find(Team.class, teamId));
+
+        assertThat(cached.getName()).isEqualTo("cacheTeam");
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(hits + 1);
+        assertThat(StatementCounter.current()).isEqualTo(statements);
+    }
+
+    @Test
+    public void queryCache() {
+        tx.executeWithoutResult(status -> teamRepository.findByName("cacheTeam"));
+        long queryCacheHits = statistics.getQueryCacheHitCount();
+        long statements = StatementCounter.current();
+
+        Team cached = tx.execute(status -> teamRepository.findByName("cacheTeam").orElseThrow());
+
+        assertThat(cached.getId()).isEqualTo(teamId);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(queryCacheHits + 1);
+        assertThat(StatementCounter.current()).isEqualTo(statements);
+    }
+
+    @Test
+    public void bulkUpdateEvicts() {
+        tx.executeWithoutResult(status -> em.find(Team.class, teamId));
+        tx.executeWithoutResult(status -> teamRepository.findByName("cacheTeam"));
+
+        tx.executeWithoutResult(status -> queryFactory
+                .update(team)
+                .set(team.name, "cacheTeam-renamed")
+                .where(team.id.eq(teamId))
+                .execute());
+
+        assertThat(emf.getCache().contains(Team.class, teamId)).isFalse();
+        String renamed = tx.execute(status -> em.find(Team.class, teamId).getName());
+        Optional<Team> oldName = tx.execute(status -> teamRepository.findByName("cacheTeam"));
+        assertThat(renamed).isEqualTo("cacheTeam-renamed");
+        assertThat(oldName).isEmpty();
+    }
+}
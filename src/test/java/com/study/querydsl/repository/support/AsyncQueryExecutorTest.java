@@ -0,0 +1,75 @@
+package com.study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AsyncQueryExecutorTest {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    ThreadPoolTaskExecutor threads;
+    AsyncQueryExecutor executor;
+
+    @BeforeEach
+    public void before() {
+        threads = new ThreadPoolTaskExecutor();
+        threads.setCorePoolSize(2);
+        threads.initialize();
+        executor = new AsyncQueryExecutor(threads, transactionManager, new SimpleMeterRegistry(), 2, Duration.ZERO);
+    }
+
+    @AfterEach
+    public void after() {
+        threads.shutdown();
+    }
+
+    @Test
+    public void readOnlyTransaction() {
+        boolean readOnly = executor.submit(TransactionSynchronizationManager::isCurrentTransactionReadOnly).join();
+
+        assertThat(readOnly).isTrue();
+    }
+
+    @Test
+    public void bulkhead() {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = executor.submit(() -> await(release, 1));
+        CompletableFuture<Integer> second = executor.submit(() -> await(release, 2));
+
+        // 자리가 없으면 기다리지 않고 바로 실패한다.
+        assertThatThrownBy(() -> executor.submit(() -> 3).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TaskRejectedException.class);
+
+        release.countDown();
+        assertThat(first.join() + second.join()).isEqualTo(3);
+        assertThat(executor.submit(() -> 3).join()).isEqualTo(3);
+    }
+
+    private static int await(CountDownLatch latch, int value) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,147 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋하므로 데이터를 커밋하고 테스트 후 직접 지운다.
+ */
+@SpringBootTest
+class ChunkedBulkExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    TransactionTemplate tx;
+    ChunkedBulkExecutor executor;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        executor = new ChunkedBulkExecutor(em, queryFactory, transactionManager, meterRegistry, 10, Duration.ofMillis(1));
+        tx.executeWithoutResult(status -> {
+            Team chunkTeam = new Team("chunkTeam");
+            em.persist(chunkTeam);
+            for (int i = 0; i < 25; i++) {
+                em.persist(new Member("chunk" + i, i, chunkTeam));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'chunk%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'chunkTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void updateInChunks() {
+        BulkMutationResult result = executor.update(member, member.id, member.username.startsWith("chunk"),
+                clause -> clause.set(member.age, member.age.add(1)));
+
+        assertThat(result.getAffectedRows()).isEqualTo(25);
+        assertThat(result.getChunkCount()).isEqualTo(3);
+        assertThat(result.getChunks()).extracting(BulkMutationResult.Chunk::getAffectedRows).containsExactly(10L, 10L, 5L);
+
+        List<Integer> ages = queryFactory.select(member.age).from(member)
+                .where(member.username.startsWith("chunk"))
+                .orderBy(member.age.asc())
+                .fetch();
+        assertThat(ages).first().isEqualTo(1);
+        assertThat(ages).last().isEqualTo(25);
+    }
+
+    @Test
+    public void deleteInChunks() {
+        BulkMutationResult result = executor.delete(member, member.id,
+                member.username.startsWith("chunk").and(member.age.goe(20)));
+
+        assertThat(result.getAffectedRows()).isEqualTo(5);
+        Long remaining = queryFactory.select(member.count()).from(member)
+                .where(member.username.startsWith("chunk"))
+                .fetchOne();
+        assertThat(remaining).isEqualTo(20);
+    }
+
+    @Test
+    public void detachStaleEntities() {
+        tx.executeWithoutResult(status -> {
+            Member loaded = queryFactory.selectFrom(member).where(member.username.eq("chunk0")).fetchOne();
+
+            executor.update(member, member.id, member.username.startsWith("chunk"),
+                    clause -> clause.set(member.username, member.username.concat("-updated")));
+
+            // flush, clear 없이도 다시 조회하면 변경된 값을 읽는다.
+            assertThat(em.contains(loaded)).isFalse();
+            assertThat(em.find(Member.class, loaded.getId()).getUsername()).isEqualTo("chunk0-updated");
+        });
+    }
+
+    @Test
+    public void pendingChangesRejected() {
+        // flush 하지 않은 변경이 청크 커밋 후 flush 되면 벌크 결과를 덮어쓰므로 실행하지 않는다.
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            Member loaded = queryFactory.selectFrom(member).where(member.username.eq("chunk0")).fetchOne();
+            loaded.setAge(100);
+
+            executor.update(member, member.id, member.username.startsWith("chunk"),
+                    clause -> clause.set(member.age, member.age.add(1)));
+        })).isInstanceOf(IllegalStateException.class);
+
+        List<Integer> ages = queryFactory.select(member.age).from(member)
+                .where(member.username.startsWith("chunk"))
+                .orderBy(member.age.asc())
+                .fetch();
+        assertThat(ages).first().isEqualTo(0);
+        assertThat(ages).last().isEqualTo(24);
+    }
+
+    @Test
+    public void skipSparseIds() {
+        // id 범위로 나누면 중간의 빈 범위도 청크가 되지만, 조건을 만족하는 id 로 경계를 정하면 건너뛴다.
+        BulkMutationResult result = executor.update(member, member.id,
+                member.username.startsWith("chunk").and(member.age.in(0, 24)),
+                clause -> clause.set(member.age, member.age.add(100)));
+
+        assertThat(result.getChunkCount()).isEqualTo(1);
+        assertThat(result.getAffectedRows()).isEqualTo(2);
+
+        ChunkedBulkExecutor single = new ChunkedBulkExecutor(em, queryFactory, transactionManager, meterRegistry, 1, Duration.ZERO);
+        result = single.delete(member, member.id, member.username.startsWith("chunk").and(member.age.goe(100)));
+
+        assertThat(result.getChunks()).extracting(BulkMutationResult.Chunk::getAffectedRows).containsExactly(1L, 1L);
+    }
+
+    @Test
+    public void noMatchingRows() {
+        BulkMutationResult result = executor.delete(member, member.id, member.username.eq("chunk-none"));
+
+        assertThat(result.getChunkCount()).isZero();
+        assertThat(result.getAffectedRows()).isZero();
+    }
+}
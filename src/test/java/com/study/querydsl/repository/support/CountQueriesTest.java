@@ -0,0 +1,114 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class CountQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+        Team teamA = new Team("countTeamA");
+        Team teamB = new Team("countTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("countMember1", 10, teamA));
+        em.persist(new Member("countMember2", 20, teamA));
+        em.persist(new Member("countMember3", 30, teamB));
+        em.persist(new Member("countMember4", 40, null));
+    }
+
+    @Test
+    public void fromContentQuery() {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.startsWith("countTeam"))
+                .orderBy(member.age.desc())
+                .offset(1)
+                .limit(1);
+
+        JPAQuery<Long> countQuery = CountQueries.from(em, queryFactory, contentQuery);
+
+        assertThat(countQuery.getMetadata().getOrderBy()).isEmpty();
+        assertThat(countQuery.getMetadata().getModifiers().getLimit()).isNull();
+        assertThat(countQuery.fetchOne()).isEqualTo(3L);
+    }
+
+    @Test
+    public void unusedLeftJoinIsRemoved() {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith("countMember"));
+
+        JPAQuery<Long> optimized = CountQueries.withoutUnusedJoins(em, queryFactory, countQuery);
+
+        assertThat(optimized.getMetadata().getJoins()).hasSize(1);
+        assertThat(optimized.fetchOne()).isEqualTo(4L);
+    }
+
+    @Test
+    public void referencedLeftJoinIsKept() {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("countTeamA"));
+
+        JPAQuery<Long> optimized = CountQueries.withoutUnusedJoins(em, queryFactory, countQuery);
+
+        assertThat(optimized.getMetadata().getJoins()).hasSize(2);
+        assertThat(optimized.fetchOne()).isEqualTo(2L);
+    }
+
+    @Test
+    public void collectionJoinIsKept() {
+        JPAQuery<Long> countQuery = queryFactory
+                .select(team.count())
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(team.name.startsWith("countTeam"));
+
+        JPAQuery<Long> optimized = CountQueries.withoutUnusedJoins(em, queryFactory, countQuery);
+
+        assertThat(optimized.getMetadata().getJoins()).hasSize(2);
+    }
+
+    @Test
+    public void groupByCountsGroups() {
+        // 팀이 없는 회원도 null 그룹 하나로 센다.
+        JPAQuery<Tuple> contentQuery = queryFactory
+                .select(team.name, member.age.avg())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith("countMember"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .limit(1);
+
+        assertThat(CountQueries.count(em, queryFactory, contentQuery).getAsLong()).isEqualTo(3L);
+        assertThat(CountQueries.fetchCount(em, queryFactory, contentQuery.having(member.count().gt(1L)))).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,90 @@
+package com.study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    SingleFlight singleFlight = new SingleFlight(meterRegistry, true);
+
+    @Test
+    public void sharesInFlightResult() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<String>> leader = CompletableFuture.supplyAsync(() ->
+                singleFlight.execute("search", "teamA", Tags.empty(), () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return List.of("member1");
+                }));
+        started.await();
+
+        List<CompletableFuture<List<String>>> followers = List.of(
+                CompletableFuture.supplyAsync(() -> singleFlight.execute("search", "teamA", Tags.empty(), () -> {
+                    executions.incrementAndGet();
+                    return List.of("other");
+                })),
+                CompletableFuture.supplyAsync(() -> singleFlight.execute("search", "teamA", Tags.empty(), () -> {
+                    executions.incrementAndGet();
+                    return List.of("other");
+                })));
+        while (calls("shared") < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        List<String> result = leader.join();
+        assertThat(followers).allSatisfy(f -> assertThat(f.join()).isSameAs(result));
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(calls("executed")).isEqualTo(1);
+
+        // 완료된 뒤의 호출은 다시 조회한다.
+        assertThat(singleFlight.execute("search", "teamA", Tags.empty(), () -> List.of("member2")))
+                .containsExactly("member2");
+    }
+
+    @Test
+    public void differentKeys() {
+        assertThat(singleFlight.execute("search", "teamA", Tags.empty(), () -> "A")).isEqualTo("A");
+        assertThat(singleFlight.execute("search", "teamB", Tags.empty(), () -> "B")).isEqualTo("B");
+        assertThat(singleFlight.execute("page", "teamA", Tags.empty(), () -> "page")).isEqualTo("page");
+        assertThat(calls("executed")).isEqualTo(3);
+    }
+
+    @Test
+    public void failureIsNotCached() {
+        assertThatThrownBy(() -> singleFlight.execute("search", "teamA", Tags.empty(), () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("search", "teamA", Tags.empty(), () -> "ok")).isEqualTo("ok");
+    }
+
+    private double calls(String result) {
+        return meterRegistry.find("singleflight.calls").tag("result", result).counters().stream()
+                .mapToDouble(c -> c.count())
+                .sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkLoaderTest {
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Test
+    public void load() {
+        MemberBulkLoader.LoadResult result = memberBulkLoader.load(List.of("bulkTeamA", "bulkTeamB"), 1050);
+
+        assertThat(result.getTeamCount()).isEqualTo(2);
+        assertThat(result.getMemberCount()).isEqualTo(1050);
+        assertThat(result.getRowsPerSecond()).isPositive();
+
+        Tuple stats = queryFactory
+                .select(member.count(), member.id.min(), member.id.max())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.in("bulkTeamA", "bulkTeamB"))
+                .fetchOne();
+        assertThat(stats.get(member.count())).isEqualTo(1050);
+        // 시퀀스 블록 할당이라 한 스레드에서 적재한 id 는 연속된다.
+        assertThat(stats.get(member.id.max()) - stats.get(member.id.min())).isEqualTo(1049);
+
+        Long teamBCount = queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.team.name.eq("bulkTeamB"))
+                .fetchOne();
+        assertThat(teamBCount).isEqualTo(525);
+    }
+}
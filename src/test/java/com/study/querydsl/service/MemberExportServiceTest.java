@@ -0,0 +1,82 @@
+package com.study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import com.study.querydsl.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberExportService memberExportService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        Team team = new Team("exportTeam");
+        em.persist(team);
+        em.persist(new Member("export1", 10, team));
+        em.persist(new Member("export,2", 20, team));
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("exportTeam");
+    }
+
+    @Test
+    public void exportNdjson() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        long count = memberExportService.export(condition, MemberExportService.Format.NDJSON, writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"username\":\"export1\"", "\"teamName\":\"exportTeam\"");
+    }
+
+    @Test
+    public void exportCsv() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        long count = memberExportService.export(condition, MemberExportService.Format.CSV, writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines[0]).isEqualTo("memberId,username,age,teamId,teamName");
+        assertThat(lines[2]).contains("\"export,2\",20");
+    }
+
+    @Test
+    public void writeJson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = memberExportService.writeJson(condition, out);
+
+        // DTO 를 직렬화한 결과와 같아야 한다.
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualTo(objectMapper.writeValueAsString(memberRepository.search(condition)));
+    }
+}
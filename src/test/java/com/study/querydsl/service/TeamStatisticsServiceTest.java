@@ -0,0 +1,138 @@
+package com.study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.TeamStatisticsDto;
+import com.study.querydsl.entity.Member;
+import com.study.querydsl.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.study.querydsl.entity.QMember.member;
+import static com.study.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 통계는 커밋된 변경만 반영하므로 트랜잭션 없이 실행하고 만든 데이터는 직접 지운다.
+ */
+@SpringBootTest(properties = {
+        "querydsl.team-stats.reconcile-interval=PT1H",
+        "querydsl.team-stats.refresh-interval=PT1H"
+})
+class TeamStatisticsServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TeamStatisticsService teamStatisticsService;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Long teamA;
+    Long teamB;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team a = new Team("statsA");
+            Team b = new Team("statsB");
+            em.persist(a);
+            em.persist(b);
+            em.persist(new Member("stats1", 10, a));
+            em.persist(new Member("stats2", 20, a));
+            em.persist(new Member("stats3", 30, b));
+            teamA = a.getId();
+            teamB = b.getId();
+        });
+        // 이전 테스트의 벌크 delete 반영 (refresh-interval 마다 실행되는 것과 같음)
+        teamStatisticsService.refresh();
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("stats")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("stats")).execute();
+        });
+    }
+
+    @Test
+    public void incremental() {
+        assertThat(stats(teamA)).isEqualTo(new TeamStatisticsDto(teamA, "statsA", 2, 30L, 10, 20, 15.0));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // 최대 나이 회원을 다른 팀으로 옮기고, 최소 나이 회원은 삭제
+            Member stats2 = queryFactory.selectFrom(member).where(member.username.eq("stats2")).fetchOne();
+            stats2.changeTeam(em.find(Team.class, teamB));
+            stats2.setAge(40);
+            em.remove(queryFactory.selectFrom(member).where(member.username.eq("stats1")).fetchOne());
+            em.find(Team.class, teamB).setName("statsB2");
+        });
+
+        assertThat(stats(teamA)).isEqualTo(new TeamStatisticsDto(teamA, "statsA", 0, null, null, null, null));
+        assertThat(stats(teamB)).isEqualTo(new TeamStatisticsDto(teamB, "statsB2", 2, 70L, 30, 40, 35.0));
+        // 증분 반영 결과가 DB 집계와 같다.
+        assertThat(teamStatisticsService.recompute()).isZero();
+    }
+
+    @Test
+    public void rollbackNotApplied() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("statsRollback", 99, em.find(Team.class, teamA)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(stats(teamA).getMax()).isEqualTo(20);
+    }
+
+    @Test
+    public void bulkRecompute() {
+        double before = meterRegistry.counter("team.stats.recompute").count();
+
+        // 청크 단위 벌크 연산처럼 벌크 이벤트가 여러 번 와도 stale 로만 표시한다.
+        for (int i = 0; i < 3; i++) {
+            transactionTemplate.executeWithoutResult(status -> queryFactory.update(member)
+                    .set(member.age, member.age.add(1))
+                    .where(member.username.startsWith("stats"))
+                    .execute());
+        }
+        assertThat(teamStatisticsService.isStale()).isTrue();
+        assertThat(meterRegistry.counter("team.stats.recompute").count()).isEqualTo(before);
+
+        // refresh 에서 한 번만 다시 계산
+        teamStatisticsService.refresh();
+        teamStatisticsService.refresh();
+        assertThat(meterRegistry.counter("team.stats.recompute").count()).isEqualTo(before + 1);
+        assertThat(stats(teamA)).isEqualTo(new TeamStatisticsDto(teamA, "statsA", 2, 36L, 13, 23, 18.0));
+    }
+
+    @Test
+    public void reconcile() {
+        // 애플리케이션 밖에서 바뀐 값은 reconcile 에서 맞춰진다.
+        jdbcTemplate.update("update member set age = 50 where username = 'stats3'");
+        assertThat(stats(teamB).getMax()).isEqualTo(30);
+
+        assertThat(teamStatisticsService.recompute()).isEqualTo(1);
+        assertThat(stats(teamB).getMax()).isEqualTo(50);
+    }
+
+    private TeamStatisticsDto stats(Long teamId) {
+        return teamStatisticsService.getStatistics().stream()
+                .filter(s -> s.getTeamId().equals(teamId))
+                .findFirst()
+                .orElseThrow();
+    }
+}